@@ -0,0 +1,267 @@
+package algorithms.Astar.ARAStar;
+
+import java.util.HashMap;
+import java.util.List;
+
+import agents.Agent;
+import algorithms.Astar.AStarSearch;
+import algorithms.Astar.AStarState;
+import algorithms.comparators.WeightedFValueComparator;
+import algorithms.heuristics.BatchHeuristicInterface;
+import algorithms.heuristics.HeuristicInterface;
+import algorithms.openlists.IndexedHeapOpenList;
+import algorithms.openlists.OpenList;
+import algorithms.trees.Node;
+import algorithms.trees.State;
+import exceptions.SolutionNotFoundException;
+import geometry.coords.AgentPosition;
+import map.Map;
+import utils.AgentUtils;
+import utils.Debug;
+import utils.DebugEnums;
+
+/**
+ * Anytime Repairing A*: a first path is found quickly with a high weight on the heuristic, then the weight is lowered
+ * and the search goes on with the nodes it already has. Voxels that get a better g after being closed in an iteration
+ * are kept in the INCONS list and opened again in the next one, with the open list sorted by the new weight.
+ * Each path found is set on the agent and published to the solution listener. A deadline stops the improvement, the
+ * last path is kept and the search does not report a timeout.
+ */
+public class ARAStarSearch extends AStarSearch {
+
+	private double _initialWeight;
+	private double _weightStep;
+	private double _weight;
+	//last path found, written by the search thread and read by the caller after a timeout
+	private volatile double _solutionCost; //nodes that cannot improve it are dropped
+	private volatile Node _solutionNode; //goal node of the last path
+	private HashMap<Long, Node> _incons; //best node of the voxels improved after being closed, by voxel key
+	private SolutionListener _listener;
+
+	/**
+	 * @param initialWeight weight of the heuristic in the first iteration
+	 * @param weightStep the weight is lowered by this amount after each path, down to 1
+	 */
+	public ARAStarSearch(Map map, Agent agent, Node root, HeuristicInterface heuristic, double initialWeight, double weightStep) {
+		super(map, agent, root, heuristic);
+		_initialWeight = initialWeight;
+		_weightStep = weightStep;
+		_incons = new HashMap<Long, Node>();
+	}
+
+	@Override
+	public void reset(long timeLimit, long initialTime) {
+		_weight = _initialWeight;
+		_openComparator = new WeightedFValueComparator(_weight);
+		_solutionCost = Double.MAX_VALUE;
+		_solutionNode = null;
+		_incons.clear();
+		super.reset(timeLimit, initialTime);
+	}
+
+	/**
+	 * The keys change with the weight, the open list is built again on each iteration
+	 */
+	@Override
+	public OpenList<Node> createOpenList() {
+		return new IndexedHeapOpenList(_openComparator);
+	}
+
+	/**
+	 * With a deadline, there is no timeout once a path was found: the best node is the goal node of the last path
+	 */
+	@Override
+	public boolean findPath(long timeLimit, long initialTime) {
+		boolean timeout = super.findPath(timeLimit, initialTime);
+		Node solution = _solutionNode;
+		if(timeout && solution != null) {
+			solution.setTimeout(false);
+			setBestNode(solution);
+			return false;
+		}
+		return timeout;
+	}
+
+	@Override
+	public void search() throws SolutionNotFoundException {
+		try {
+			while(true) {
+				boolean improved = false;
+				while(!_openList.isEmpty() && !improved) {
+					improved = getBestNodeAndExpand();
+					if(isSearchStopped()) {
+						return;
+					}
+				}
+				//the voxels improved after being closed can still lead to a path (e.g. when the first ones were late)
+				if(_openList.isEmpty() && _incons.isEmpty()) {
+					if(!hasSolution()) {
+						throw new SolutionNotFoundException("Num nodes expanded: " + _numExpanded + ". Num nodes generated: " + _numGenerated + " " + getAlgorithmName());
+					}
+					return;
+				}
+				if(improved && _weight <= 1) {
+					return;
+				}
+				_weight = Math.max(1, _weight - _weightStep);
+				startIteration();
+			}
+		}
+		catch(SolutionNotFoundException e) {
+			//the last path is kept
+			if(!hasSolution()) {
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Sorts the open and INCONS nodes by the new weight and opens all the voxels again
+	 */
+	private void startIteration() {
+		_openComparator = new WeightedFValueComparator(_weight);
+		OpenList<Node> previous = _openList;
+		_openList = createOpenList();
+		while(!previous.isEmpty()) {
+			reopen(previous.poll());
+		}
+		for(Node node : _incons.values()) {
+			reopen(node);
+		}
+		_incons.clear();
+		_arena.clearClosed();
+	}
+
+	private void reopen(Node node) {
+		AStarState state = (AStarState)node.getState();
+		if(state.getGVal() + state.getHVal() >= _solutionCost) {
+			return;
+		}
+		//nodes replaced by a better one of the same voxel are dropped, several goal nodes can be open
+		if(state.getKey() != _goalKey && getGeneratedNode(state.getKey()) != node) {
+			return;
+		}
+		_openList.add(node);
+	}
+
+	/**
+	 * Drops the nodes that cannot lead to a cheaper path than the last one, and the ones that cannot reach the goal by its
+	 * ETA. Nodes are not popped by f, so a late node does not mean that no node left can arrive in time as in A*
+	 */
+	@Override
+	public Node pollNextNode() {
+		Node node = _openList.poll();
+		while(node != null && (node.getState().getGVal() + node.getState().getHVal() >= _solutionCost || !arrivesInTime(node))) {
+			node = _openList.poll();
+		}
+		return node;
+	}
+
+	/**
+	 * Same check as checkBestNodeValidity, without the exception
+	 */
+	private boolean arrivesInTime(Node node) {
+		AgentPosition position = (AgentPosition)((AStarState)node.getState()).getPosition();
+		AgentPosition current = position;
+		//for the goal voxel, the real path line is between the parent and the real goal position
+		if(((AStarState)node.getState()).getKey() == _goalKey && node.getParent() != null) {
+			current = (AgentPosition)((AStarState)node.getParent().getState()).getPosition();
+		}
+		return arrivesInTime(current, position);
+	}
+
+	/**
+	 * Closed voxels are not skipped, they can get a better g in this iteration. Moves are always checked when generated
+	 */
+	@Override
+	public void expandNode() {
+		List<State> neighbors = ((AStarState)_bestNode.getState()).expand(_map, _agent, _metrics, null, true);
+		if(_heuristic instanceof BatchHeuristicInterface) {
+			calcBatchHeuristics(neighbors);
+		}
+		processNeighbors(neighbors, _bestNode, _goal);
+	}
+
+	/**
+	 * Like A*, but a closed voxel reached with a better g is moved to the INCONS list instead of being pruned
+	 */
+	@Override
+	public void processNeighbors(List<State> neighbors, Node current, State goal) {
+		for(State neighbor : neighbors) {
+			long key = ((AStarState)neighbor).getKey();
+			int record = _arena.find(key);
+			double distance = computeAndUpdateGCost(neighbor, current.getState(), goal);
+			if(key == _goalKey) {
+				addNewNode(current, neighbor, goal, distance);
+			}
+			else if(record >= 0 && neighbor.getGVal() >= _arena.getG(record)) {
+				_metrics.duplicatePruned();
+			}
+			else if(record >= 0 && _arena.isClosed(record)) {
+				AgentUtils.updateTimestep((AgentPosition)((AStarState)neighbor).getPosition(), (AgentPosition)((AStarState)current.getState()).getPosition(), _agent.getSpeed());
+				Node node = createNeighborNode(neighbor, current, goal, distance);
+				recordGenerated(node);
+				_incons.put(key, node);
+				_metrics.nodeGenerated(_openList.size());
+			}
+			else {
+				addNewNode(current, neighbor, goal, distance, record >= 0 ? _arena.getNode(record) : null);
+			}
+		}
+	}
+
+	@Override
+	public void returnFromGoalState() {
+		double cost = _bestNode.getState().getGVal();
+		super.returnFromGoalState();
+		_solutionCost = cost;
+		//written last, so a caller that sees the node also sees the path and its cost
+		_solutionNode = _bestNode;
+		Debug.print(DebugEnums.INFO, getAlgorithmName() + ": path with cost " + cost + " and weight " + _weight);
+		if(_listener != null) {
+			_listener.solutionFound(_agent.getPath(), cost, _weight);
+		}
+	}
+
+	@Override
+	public String getAlgorithmName() {
+		return "ARA*";
+	}
+
+	/***********************************************************/
+	/* Getters & Setters									   */
+	/***********************************************************/
+
+	public boolean hasSolution() {
+		return _solutionNode != null;
+	}
+
+	/**
+	 * @return goal node of the last path found, null if none
+	 */
+	public Node getSolutionNode() {
+		return _solutionNode;
+	}
+
+	/**
+	 * @return cost of the last path found, Double.MAX_VALUE if none
+	 */
+	public double getSolutionCost() {
+		return _solutionCost;
+	}
+
+	/**
+	 * @return weight of the current iteration
+	 */
+	public double getWeight() {
+		return _weight;
+	}
+
+	public SolutionListener getSolutionListener() {
+		return _listener;
+	}
+
+	public void setSolutionListener(SolutionListener listener) {
+		_listener = listener;
+	}
+}
@@ -0,0 +1,16 @@
+package algorithms.Astar.ARAStar;
+
+import agents.path.Path;
+
+/**
+ * Receives the paths found by an anytime search, each one cheaper than the previous one. Called on the search thread
+ */
+public interface SolutionListener {
+
+	/**
+	 * @param path path of the agent, it is replaced when a better one is found
+	 * @param cost cost of the path
+	 * @param weight weight of the heuristic when the path was found, the cost is at most weight times the optimal one
+	 */
+	public void solutionFound(Path path, double cost, double weight);
+}
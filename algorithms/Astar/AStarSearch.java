@@ -1,13 +1,22 @@
 package algorithms.Astar;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.function.LongPredicate;
 
 import agents.Agent;
 import agents.path.PathLine;
+import algorithms.Astar.ODStar.Move;
 import algorithms.BFSearch;
 import algorithms.comparators.FValueComparator;
+import algorithms.heuristics.BatchHeuristicInterface;
+import algorithms.heuristics.DistanceTableCache;
 import algorithms.heuristics.HeuristicInterface;
+import algorithms.heuristics.StaticDistanceHeuristic;
+import algorithms.openlists.IndexedHeapOpenList;
+import algorithms.openlists.MonotoneBucketOpenList;
+import algorithms.openlists.OpenList;
 import algorithms.trees.Node;
 import algorithms.trees.State;
 import exceptions.SolutionNotFoundException;
@@ -22,9 +31,20 @@ import utils.Utils;
 
 public class AStarSearch extends BFSearch {
 	
-	protected HashMap<Node, Node> _expanded;
+	protected NodeArena _arena; //records of the voxels seen by the search
 	protected Agent _agent;
 	protected UTMCoord _goalVoxel;
+	protected long _goalKey;
+	private final LongPredicate _closedVoxel = this::isClosedVoxel;
+	//coordinates and heuristic values of the neighbors of an expansion, for batch heuristics
+	private double[] _neighborX = new double[Move.NEIGHBORHOOD.length];
+	private double[] _neighborY = new double[Move.NEIGHBORHOOD.length];
+	private double[] _neighborZ = new double[Move.NEIGHBORHOOD.length];
+	private float[] _neighborH = new float[Move.NEIGHBORHOOD.length];
+	protected double _bucketWidth = 0; //0 to use the default open list
+	protected boolean _lazyMoveValidation = false; //check moves when nodes are popped instead of when they are generated
+	protected boolean _bidirectional = false; //search the static map from both ends when there are no agent obstacles
+	protected DistanceTableCache _distanceTables; //static distance tables of the run, else the ones of the root (if any)
 
 	public AStarSearch(Map map, Agent agent, Node root, HeuristicInterface heuristic) {
 		super(map, root, heuristic, new FValueComparator());
@@ -34,14 +54,38 @@ public class AStarSearch extends BFSearch {
 	@Override
 	public void reset(long timeLimit, long initialTime) {
 		super.reset(timeLimit, initialTime);
-		_expanded = new HashMap<Node, Node>();
+		if(_arena == null) {
+			_arena = NodeArena.acquire();
+		}
+		else {
+			_arena.clear();
+		}
+	}
+	
+	@Override
+	public void releaseResources() {
+		if(_arena != null) {
+			_arena.release();
+			_arena = null;
+		}
+	}
+	
+	/**
+	 * Indexed heap by default, so a better path to an open node updates it instead of adding a duplicate
+	 */
+	@Override
+	public OpenList<Node> createOpenList() {
+		if(_bucketWidth > 0) {
+			return new MonotoneBucketOpenList(_openComparator, _bucketWidth);
+		}
+		return new IndexedHeapOpenList(_openComparator);
 	}
 	
 	@Override
 	public void createStartState() {
 		State start = createStartStatePosition();
 		//compute and set heuristic
-		start.setHVal(_heuristic.calcHeuristic(start, _goal));
+		updateFValue(start, _goal);
 		//add state to root node
 		_root.setState(start);
 	}
@@ -54,6 +98,72 @@ public class AStarSearch extends BFSearch {
 	public void createGoalState() {		
 		_goal = new AStarState((AgentPosition)_agent.getGoal());
 		_goalVoxel = (UTMCoord) Utils.convertPositionToVoxel((UTMCoord)((AStarState)_goal)._position);
+		_goalKey = VoxelKey.pack(_goalVoxel);
+		//inside a CBS, ECBS or ID run with static distance tables, the goals repeat between low level searches.
+		//The heuristic is wrapped again for each search: a table that is not cached is built with its stop check
+		DistanceTableCache tables = _distanceTables != null ? _distanceTables : _root.getDistanceTables();
+		if(tables != null) {
+			HeuristicInterface base = _heuristic instanceof StaticDistanceHeuristic ? ((StaticDistanceHeuristic)_heuristic).getBase() : _heuristic;
+			_heuristic = new StaticDistanceHeuristic(tables, _agent.getRadius(), base, this::isSearchStopped);
+		}
+	}
+	
+	/**
+	 * In bidirectional mode, and if the map has no agent obstacles, the path is first searched over the static map from
+	 * both ends (see BidirectionalSearch). Falls back to the forward search if that path is not valid with the agent
+	 * times
+	 */
+	@Override
+	public void search() throws SolutionNotFoundException {
+		if(_bidirectional && !hasAgentObstacles() && searchBidirectional()) {
+			return;
+		}
+		super.search();
+	}
+	
+	private boolean hasAgentObstacles() {
+		HashMap<Integer, HashSet<PathLine>> agentObstacles = _map.getAgentObstacles();
+		return agentObstacles != null && !agentObstacles.isEmpty();
+	}
+	
+	/**
+	 * Builds the nodes of the path found by the bidirectional search from the root, which assigns the ETAs forward, and
+	 * checks its moves and the goal like the forward search
+	 * @return true if the search is over: the path was valid or the search was stopped
+	 */
+	private boolean searchBidirectional() throws SolutionNotFoundException {
+		PointInterface startPosition = ((AStarState)_root.getState())._position;
+		AgentPosition startVoxel = new AgentPosition((int)startPosition.getX(), (int)startPosition.getY(), (int)startPosition.getZ(), -1, -1,
+				((UTMCoord)startPosition).getZone(), ((UTMCoord)startPosition).getLatitudeBand());
+		AgentPosition goalVoxel = new AgentPosition(_goalVoxel.getX(), _goalVoxel.getY(), _goalVoxel.getZ(), -1, -1,
+				_goalVoxel.getZone(), _goalVoxel.getLatitudeBand());
+		if(VoxelKey.pack(startVoxel) == _goalKey) {
+			return false;
+		}
+		HeuristicInterface heuristic = _heuristic instanceof StaticDistanceHeuristic ? ((StaticDistanceHeuristic)_heuristic).getBase() : _heuristic;
+		BidirectionalSearch bidirectional = new BidirectionalSearch(_map, _agent.getRadius(), heuristic, _metrics, this::isSearchStopped);
+		List<AgentPosition> voxels = bidirectional.findPath(startVoxel, goalVoxel);
+		if(voxels == null) {
+			if(bidirectional.isSearchStopped()) {
+				return true;
+			}
+			throw new SolutionNotFoundException("No path over the static map. " + getAlgorithmName());
+		}
+		Node current = _root;
+		for(int i = 1; i < voxels.size(); i++) {
+			AStarState state = new AStarState(voxels.get(i));
+			double distance = computeAndUpdateGCost(state, current.getState(), _goal);
+			Node next = createNeighborNode(state, current, _goal, distance);
+			long start = _metrics.startTimer();
+			boolean valid = _map.isMoveValid(new PathLine(((AStarState)current.getState())._position, state._position, _agent), _goalVoxel);
+			_metrics.addMoveValidationTime(start);
+			if(!valid) {
+				return false;
+			}
+			current = next;
+		}
+		_bestNode = current;
+		return checkForGoalState();
 	}
 	
 	@Override
@@ -64,12 +174,148 @@ public class AStarSearch extends BFSearch {
 	@Override
 	public void expandNode() {
 		//get all possible neighbors
-		List<State> neighbors = ((AStarState)_bestNode.getState()).expand(_map, _agent);
+		List<State> neighbors = ((AStarState)_bestNode.getState()).expand(_map, _agent, _metrics, _closedVoxel, !_lazyMoveValidation);
+		if(_heuristic instanceof BatchHeuristicInterface) {
+			calcBatchHeuristics(neighbors);
+		}
 		
 		//create nodes for the neighbor states and add them to the open list
 		processNeighbors(neighbors, _bestNode, _goal);
 	}
 	
+	/**
+	 * Computes the heuristic of all the neighbors in one call, the values are used when their nodes are created
+	 */
+	protected void calcBatchHeuristics(List<State> neighbors) {
+		int count = neighbors.size();
+		if(count > _neighborH.length) {
+			_neighborX = new double[count];
+			_neighborY = new double[count];
+			_neighborZ = new double[count];
+			_neighborH = new float[count];
+		}
+		for(int i = 0; i < count; i++) {
+			PointInterface position = ((AStarState)neighbors.get(i))._position;
+			_neighborX[i] = position.getX();
+			_neighborY[i] = position.getY();
+			_neighborZ[i] = position.getZ();
+		}
+		long start = _metrics.startTimer();
+		((BatchHeuristicInterface)_heuristic).calcHeuristics(_neighborX, _neighborY, _neighborZ, count, _goal, _neighborH);
+		_metrics.addHeuristicTime(start);
+		for(int i = 0; i < count; i++) {
+			((AStarState)neighbors.get(i)).setBatchHVal(_neighborH[i]);
+		}
+	}
+	
+	/**
+	 * Drops neighbors in closed voxels before their positions are created and their moves validated, like processNeighbors
+	 * would drop them afterwards. The goal voxel is always kept.
+	 */
+	private boolean isClosedVoxel(long key) {
+		if(key == _goalKey) {
+			return false;
+		}
+		int record = _arena.find(key);
+		if(record >= 0 && _arena.isClosed(record)) {
+			_metrics.duplicatePruned();
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * With lazy move validation, the move from the parent is only checked when the node is popped. Nodes whose move is
+	 * not valid are discarded and the next one is popped
+	 * @return null if every node left was discarded
+	 */
+	@Override
+	public Node getNextBestNode() {
+		Node node = pollNextNode();
+		while(node != null && !validateMove(node)) {
+			node = pollNextNode();
+		}
+		return node;
+	}
+	
+	/**
+	 * @return the next node of the open list, null if it is empty
+	 */
+	public Node pollNextNode() {
+		return _openList.poll();
+	}
+	
+	/**
+	 * Checks the move from the parent of a node generated without validation. If it is not valid, the node is generated
+	 * again from the closed neighbor voxel with the cheapest valid move (as lazy Theta* does with line of sight)
+	 * @return true if the node can be expanded
+	 */
+	protected boolean validateMove(Node node) {
+		AStarState state = (AStarState)node.getState();
+		if(state.isMoveValidated() || node.getParent() == null) {
+			return true;
+		}
+		long start = _metrics.startTimer();
+		boolean valid = _map.isMoveValid(new PathLine(((AStarState)node.getParent().getState())._position, state._position, _agent), _goalVoxel);
+		_metrics.addMoveValidationTime(start);
+		if(valid) {
+			state.setMoveValidated(true);
+			return true;
+		}
+		int record = _arena.find(state.getKey());
+		//a node replaced by a better one is just dropped
+		if(record >= 0 && _arena.getNode(record) == node) {
+			if(!regenerateFromClosedNeighbor(node)) {
+				_arena.discardG(record);
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * @return false if no closed neighbor voxel has a valid move to the voxel of the node
+	 */
+	private boolean regenerateFromClosedNeighbor(Node node) {
+		PointInterface position = ((AStarState)node.getState())._position;
+		int x = (int)position.getX();
+		int y = (int)position.getY();
+		int z = (int)position.getZ();
+		int zone = ((UTMCoord)position).getZone();
+		Node bestParent = null;
+		AStarState best = null;
+		double bestDistance = 0;
+		for(Move move : Move.NEIGHBORHOOD) {
+			if(move == Move.W) {
+				continue;
+			}
+			int record = _arena.find(VoxelKey.pack(x - move.getDx(), y - move.getDy(), z - move.getDz(), zone));
+			if(record < 0 || !_arena.isClosed(record) || _arena.getNode(record) == node.getParent()) {
+				continue;
+			}
+			Node parent = _arena.getNode(record);
+			AStarState candidate = new AStarState((AgentPosition)position.clonePoint());
+			candidate.setMoveValidated(true);
+			AgentUtils.updateTimestep((AgentPosition)candidate._position, (AgentPosition)((AStarState)parent.getState())._position, _agent.getSpeed());
+			double distance = computeAndUpdateGCost(candidate, parent.getState(), _goal);
+			if(best != null && candidate.getGVal() >= best.getGVal()) {
+				continue;
+			}
+			long start = _metrics.startTimer();
+			boolean valid = _map.isMoveValid(new PathLine(((AStarState)parent.getState())._position, candidate._position, _agent), _goalVoxel);
+			_metrics.addMoveValidationTime(start);
+			if(valid) {
+				bestParent = parent;
+				best = candidate;
+				bestDistance = distance;
+			}
+		}
+		if(best == null) {
+			return false;
+		}
+		addNewNode(bestParent, best, _goal, bestDistance);
+		return true;
+	}
+	
 	@Override
 	public boolean isGoalNode(Node current) throws SolutionNotFoundException {
 		//check coordinates
@@ -108,14 +354,22 @@ public class AStarSearch extends BFSearch {
 	}
 	
 	public void checkETAValidity(AgentPosition current) throws SolutionNotFoundException {
-		// get the minimum time it takes to reach the goal position
-		double timeToGoal = GeometryUtils.getTimeFromDistance(GeometryUtils.getDistanceBetweenPoints3D(current, ((AStarState) _goal).getPosition()), _agent.getSpeed());
-
-		if (((AgentPosition) ((AStarState) _bestNode.getState()).getPosition()).getEta() + timeToGoal > ((AgentPosition) ((AStarState) _goal).getPosition()).getMaxETA()) {
+		if (!arrivesInTime(current, (AgentPosition) ((AStarState) _bestNode.getState()).getPosition())) {
 			throw new SolutionNotFoundException("Cannot reach Region by ETA + delta. " + getAlgorithmName());
 		}
 	}
 	
+	/**
+	 * @param current position the remaining distance to the goal is measured from
+	 * @param position position of the node, with its ETA
+	 * @return true if the goal can still be reached by its maximum ETA
+	 */
+	protected boolean arrivesInTime(AgentPosition current, AgentPosition position) {
+		// get the minimum time it takes to reach the goal position
+		double timeToGoal = GeometryUtils.getTimeFromDistance(GeometryUtils.getDistanceBetweenPoints3D(current, ((AStarState) _goal).getPosition()), _agent.getSpeed());
+		return position.getEta() + timeToGoal <= ((AgentPosition) ((AStarState) _goal).getPosition()).getMaxETA();
+	}
+	
 	/**
 	 * @param current
 	 * @return true if there are conflicts, false if not
@@ -174,21 +428,29 @@ public class AStarSearch extends BFSearch {
 	public void processNeighbors(List<State> neighbors, Node current, State goal) {
 		for(State neighbor : neighbors) {
 			//check if this neighbor was already expanded
-			Node auxNode = new Node(null, neighbor);
+			long key = ((AStarState)neighbor).getKey();
+			int record = _arena.find(key);
 			boolean goalNode = false;
 			if(((AStarState)neighbor).getPosition().equals(_goalVoxel)) {
 				goalNode = true;
 			}
-			if(!goalNode && _closedList.contains(auxNode) && !((AStarState)neighbor)._waitMove) {
+			if(!goalNode && record >= 0 && _arena.isClosed(record) && !((AStarState)neighbor)._waitMove) {
+				_metrics.duplicatePruned();
 				continue;
 			}
 			//compute the cost until this node
 			double distance = computeAndUpdateGCost(neighbor, current.getState(), goal);
 			//add node if it was never visited or if it was but this is a better path
-			boolean isVisited = _expanded.containsKey(auxNode);
-			if(goalNode || !isVisited || (isVisited && neighbor.getGVal() < _expanded.get(auxNode).getState().getGVal())) {
+			boolean isVisited = record >= 0;
+			if(goalNode) {
 				addNewNode(current, neighbor, goal, distance);
 			}
+			else if(!isVisited || neighbor.getGVal() < _arena.getG(record)) {
+				addNewNode(current, neighbor, goal, distance, isVisited ? _arena.getNode(record) : null);
+			}
+			else {
+				_metrics.duplicatePruned();
+			}
 		}
 	}
 	
@@ -200,15 +462,60 @@ public class AStarSearch extends BFSearch {
 	}
 	
 	public void addNewNode(Node current, State neighbor, State goal, double distance) {
+		addNewNode(current, neighbor, goal, distance, null);
+	}
+	
+	/**
+	 * @param previous node of the same state that was already generated, null if none
+	 */
+	public void addNewNode(Node current, State neighbor, State goal, double distance, Node previous) {
 
 		//update timestep
 		AgentUtils.updateTimestep((AgentPosition)((AStarState)neighbor).getPosition(), (AgentPosition)((AStarState)current.getState()).getPosition(), _agent.getSpeed());
 		Node newNode = createNeighborNode(neighbor, current, goal, distance);
-		_expanded.put(newNode, newNode);
-		_openList.add(newNode);
+		recordGenerated(newNode);
+		//if the previous node is still open, decrease its key instead of adding a duplicate
+		if(previous == null || !_openList.replace(previous, newNode)) {
+			_openList.add(newNode);
+		}
+		_metrics.nodeGenerated(_openList.size());
 		otherNodeUpdates(newNode);
 	}
 	
+	/**
+	 * Keeps the node as the best one generated for its voxel
+	 */
+	public void recordGenerated(Node node) {
+		int record = _arena.find(((AStarState)node.getState()).getKey());
+		int parent = node.getParent() == null ? -1 : _arena.find(((AStarState)node.getParent().getState()).getKey());
+		if(record < 0) {
+			_arena.add(((AStarState)node.getState()).getKey(), node, parent);
+		}
+		else {
+			_arena.set(record, node, parent);
+		}
+	}
+	
+	/**
+	 * @return the best node generated for the voxel, null if none
+	 */
+	public Node getGeneratedNode(long key) {
+		int record = _arena.find(key);
+		return record < 0 ? null : _arena.getNode(record);
+	}
+	
+	@Override
+	public void closeNode(Node node) {
+		long key = ((AStarState)node.getState()).getKey();
+		int record = _arena.find(key);
+		if(record < 0) {
+			// the root is never recorded as generated
+			record = _arena.add(key, node, -1);
+		}
+		_arena.close(record);
+		_metrics.nodeClosed(_arena.getClosedCount());
+	}
+	
 	/**
 	 * Computes the cost between the start and the neighbor (updates the value on the neighbor state)
 	 * @param neighbor
@@ -255,18 +562,95 @@ public class AStarSearch extends BFSearch {
 	
 	public void updateFValue(State neighbor, State goal) {
 		//F value is being updated together with the H value
+		if(neighbor instanceof AStarState && !Float.isNaN(((AStarState)neighbor).getBatchHVal())) {
+			neighbor.setHVal(((AStarState)neighbor).getBatchHVal());
+			return;
+		}
+		long start = _metrics.startTimer();
 		neighbor.setHVal(_heuristic.calcHeuristic(neighbor, goal));
+		_metrics.addHeuristicTime(start);
 	}
 	
 	/***********************************************************/
 	/* Getters & Setters									   */
 	/***********************************************************/
 	
+	/**
+	 * @return a new map with the best node generated for each voxel. Built on each call, for tests and debugging.
+	 * Empty once the search is over, the arena is back in the pool
+	 */
 	public HashMap<Node, Node> getExpanded() {
-		return _expanded;
+		HashMap<Node, Node> expanded = new HashMap<Node, Node>();
+		for(int record = 0; _arena != null && record < _arena.size(); record++) {
+			expanded.put(_arena.getNode(record), _arena.getNode(record));
+		}
+		return expanded;
+	}
+	
+	/**
+	 * @return a new set with the best generated node of each closed voxel. Built on each call, for tests and debugging.
+	 * Empty once the search is over, the arena is back in the pool
+	 */
+	@Override
+	public HashSet<Node> getClosedList() {
+		HashSet<Node> closed = new HashSet<Node>();
+		for(int record = 0; _arena != null && record < _arena.size(); record++) {
+			if(_arena.isClosed(record)) {
+				closed.add(_arena.getNode(record));
+			}
+		}
+		return closed;
 	}
 
 	public Agent getAgent() {
 		return _agent;
 	}
+	
+	public double getBucketWidth() {
+		return _bucketWidth;
+	}
+
+	/**
+	 * @param bucketWidth range of f values in each bucket of a MonotoneBucketOpenList, 0 to use the default open list.
+	 * Not used by Focal A*, which keeps open and focal lists in a FocalOpenList
+	 */
+	public void setBucketWidth(double bucketWidth) {
+		_bucketWidth = bucketWidth;
+	}
+	
+	public boolean isBidirectional() {
+		return _bidirectional;
+	}
+
+	/**
+	 * @param bidirectional true to search from both ends over the static map first when the map has no agent obstacles,
+	 * for long routes. The ETAs are assigned along the path found afterwards
+	 */
+	public void setBidirectional(boolean bidirectional) {
+		_bidirectional = bidirectional;
+	}
+
+	public DistanceTableCache getDistanceTables() {
+		return _distanceTables;
+	}
+
+	/**
+	 * @param distanceTables static distance tables of the run the search belongs to, used as heuristic. Null to use the
+	 * ones set on the root node, if any
+	 */
+	public void setDistanceTables(DistanceTableCache distanceTables) {
+		_distanceTables = distanceTables;
+	}
+	
+	public boolean isLazyMoveValidation() {
+		return _lazyMoveValidation;
+	}
+
+	/**
+	 * @param lazyMoveValidation true to push neighbors without checking their moves and check them when they are popped.
+	 * Pays off when collision checks are expensive (e.g. dense agent obstacles) and most generated nodes are never expanded
+	 */
+	public void setLazyMoveValidation(boolean lazyMoveValidation) {
+		_lazyMoveValidation = lazyMoveValidation;
+	}
 }
@@ -2,9 +2,12 @@ package algorithms.Astar;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.LongPredicate;
 
 import agents.Agent;
 import agents.path.PathLine;
+import algorithms.Astar.ODStar.Move;
+import algorithms.metrics.SearchMetrics;
 import algorithms.trees.State;
 import geometry.coords.AgentPosition;
 import geometry.coords.PointInterface;
@@ -17,39 +20,92 @@ import utils.Utils;
 public class AStarState extends State {
 	protected double _timestep;
 	protected boolean _waitMove;
+	protected boolean _moveValidated = true; //false while the move from the parent was not checked (lazy move validation)
 	protected PointInterface _position;
+	protected long _key; //voxel of the position, see VoxelKey
+	protected float _batchHVal = Float.NaN; //heuristic computed with the other neighbors of the expansion, NaN if none
 	
 	public AStarState() {
 		super();
 		_timestep = 0;
 		_position = null;
+		_key = 0;
 	}
 	
 	public AStarState(double gVal, double hVal, double fVal, AgentPosition position) {
 		super(gVal, hVal, fVal);
 		_timestep = position.getEta();
 		_position = position;
+		_key = VoxelKey.pack(position);
 	}
 	
 	public AStarState(AgentPosition position) {
 		super(-1, -1, -1);
 		_timestep = position.getEta();
 		_position = position;
+		_key = VoxelKey.pack(position);
 	}
 	
 	public List<State> expand(Map map, Agent agent){
+		return expand(map, agent, null);
+	}
+	
+	/**
+	 * @param metrics metrics of the search, used to time the move validations. Can be null
+	 */
+	public List<State> expand(Map map, Agent agent, SearchMetrics metrics){
+		return expand(map, agent, metrics, null);
+	}
+	
+	/**
+	 * Walks the moves of the neighborhood over the voxel indices. A position is only created for the neighbors that the
+	 * filter keeps, and the move is only validated for the ones inside the map.
+	 * @param metrics metrics of the search, used to time the move validations. Can be null
+	 * @param skip voxel keys of neighbors to drop before any allocation or map query (e.g. closed voxels). Never applied
+	 * to the wait move. Can be null
+	 */
+	public List<State> expand(Map map, Agent agent, SearchMetrics metrics, LongPredicate skip){
+		return expand(map, agent, metrics, skip, true);
+	}
+	
+	/**
+	 * @param validateMoves false to leave the moves unchecked (lazy move validation), the search then checks them when
+	 * the states are popped
+	 */
+	public List<State> expand(Map map, Agent agent, SearchMetrics metrics, LongPredicate skip, boolean validateMoves){
 		List<State> neighborStates = new ArrayList<State>();
-		//first get all neighbor positions
 		PointInterface goalPos = Utils.convertPositionToVoxel((UTMCoord)agent.getGoal());
-		List<PointInterface> neighborPositions = getPossibleNeighborPositions(map, agent.getRadius(), goalPos);
-		//then check which ones are valid
-		for(PointInterface neighbor : neighborPositions) {
-			AgentUtils.updateTimestep((AgentPosition)neighbor, (AgentPosition)_position, agent.getSpeed());
-			PathLine line = new PathLine(_position, neighbor, agent);
-			if(map.isMoveValid(line, goalPos)) {
+		int x = (int)_position.getX();
+		int y = (int)_position.getY();
+		int z = (int)_position.getZ();
+		int zone = ((UTMCoord)_position).getZone();
+		char band = ((UTMCoord)_position).getLatitudeBand();
+		for(Move move : Move.NEIGHBORHOOD) {
+			int nx = x + move.getDx();
+			int ny = y + move.getDy();
+			int nz = z + move.getDz();
+			if(skip != null && move != Move.W && skip.test(VoxelKey.pack(nx, ny, nz, zone))) {
+				continue;
+			}
+			AgentPosition neighbor = new AgentPosition(nx, ny, nz, -1, -1, zone, band);
+			if(!map.inMap(neighbor, goalPos, agent.getRadius())) {
+				continue;
+			}
+			AgentUtils.updateTimestep(neighbor, (AgentPosition)_position, agent.getSpeed());
+			boolean valid = true;
+			if(validateMoves) {
+				PathLine line = new PathLine(_position, neighbor, agent);
+				long start = metrics == null ? 0 : metrics.startTimer();
+				valid = map.isMoveValid(line, goalPos);
+				if(metrics != null) {
+					metrics.addMoveValidationTime(start);
+				}
+			}
+			if(valid) {
 				//create and add the new state
-				AStarState newState = new AStarState((AgentPosition)neighbor);
-				newState._waitMove = ((AgentPosition)neighbor).isWait();
+				AStarState newState = new AStarState(neighbor);
+				newState._waitMove = neighbor.isWait();
+				newState._moveValidated = validateMoves;
 				neighborStates.add(newState);
 			}
 		}
@@ -61,21 +117,18 @@ public class AStarState extends State {
 		return GeometryUtils.getDistanceBetweenPoints3D(_position, ((AStarState)state).getPosition());
 	}
 	
+	/**
+	 * Two states are the same if they are in the same voxel
+	 */
 	@Override
 	public boolean  equals(Object o) {
 		AStarState other = (AStarState)o;
-		AgentPosition otherPosition = (AgentPosition)other.getPosition();
-		boolean samePosition = _position.equals(new UTMCoord((int)otherPosition.getX(), (int)otherPosition.getY(), (int)otherPosition.getZ(), otherPosition.getZone(), otherPosition.getLatitudeBand()));
-//		boolean sameTimeStep = false;
-//		if(samePosition) {
-//			sameTimeStep = Utils.valueInBetween(((AgentPosition)_position).getEta(), otherPosition.getEta() - 1, otherPosition.getEta() + 1);
-//		}
-		return samePosition /*&& sameTimeStep*/;
+		return _key == other._key;
 	}
 	
 	@Override
 	public int hashCode() {
-		return _position.hashCode();
+		return VoxelKey.hash(_key);
 	}
 	
 	@Override
@@ -111,14 +164,10 @@ public class AStarState extends State {
 	 */
 	public List<PointInterface> getPossibleNeighborPositions(Map map, double agentRadius, PointInterface goal){
 		List<PointInterface> positions = new ArrayList<PointInterface>();
-		for(int x = -1; x <= 1; x++) {
-			for(int y = -1; y <= 1; y++) {
-				for(int z = -1; z <= 1; z++) {
-					AgentPosition position = new AgentPosition((int)_position.getX() + x, (int)_position.getY() + y, (int)_position.getZ() + z, -1, -1, ((UTMCoord)_position).getZone(), ((UTMCoord)_position).getLatitudeBand());
-					if(map.inMap(position, goal, agentRadius)) {
-						positions.add(position);
-					}
-				}
+		for(Move move : Move.NEIGHBORHOOD) {
+			AgentPosition position = new AgentPosition((int)_position.getX() + move.getDx(), (int)_position.getY() + move.getDy(), (int)_position.getZ() + move.getDz(), -1, -1, ((UTMCoord)_position).getZone(), ((UTMCoord)_position).getLatitudeBand());
+			if(map.inMap(position, goal, agentRadius)) {
+				positions.add(position);
 			}
 		}
 		return positions;
@@ -138,6 +187,27 @@ public class AStarState extends State {
 	
 	public void setPosition(PointInterface position) {
 		_position = position;
+		_key = VoxelKey.pack(position);
+	}
+	
+	public long getKey() {
+		return _key;
+	}
+	
+	public float getBatchHVal() {
+		return _batchHVal;
+	}
+	
+	public void setBatchHVal(float batchHVal) {
+		_batchHVal = batchHVal;
+	}
+	
+	public boolean isMoveValidated() {
+		return _moveValidated;
+	}
+	
+	public void setMoveValidated(boolean moveValidated) {
+		_moveValidated = moveValidated;
 	}
 
 }
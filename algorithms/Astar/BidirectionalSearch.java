@@ -0,0 +1,272 @@
+package algorithms.Astar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import algorithms.Astar.ODStar.Move;
+import algorithms.collections.FloatIntHeap;
+import algorithms.collections.LongIntHashMap;
+import algorithms.heuristics.HeuristicInterface;
+import algorithms.metrics.SearchMetrics;
+import geometry.coords.AgentPosition;
+import map.Map;
+
+/**
+ * Bidirectional front to end search between two voxels over the static map (MM, "meet in the middle"): a forward search
+ * from the start and a backward search from the goal, each one with the heuristic to the other end. Nodes are expanded
+ * by priority max(f, 2g), so neither search goes past the middle of the optimal path, and the searches stop when the
+ * best path found through a voxel reached by both is not longer than the lower bound of MM: the largest of the smallest
+ * priority, the smallest f of each search and the sum of the smallest g of both searches plus the cost of a move.
+ * Only Map.inMap is queried: there are no times in a backward search, the moves are checked afterwards by AStarSearch.
+ */
+public class BidirectionalSearch {
+
+	private static final int PRIORITY = 0;
+	private static final int F = 1;
+	private static final int G = 2;
+	private static final float MIN_MOVE_COST = 1;
+	private static final double KEY_PRECISION = 1e-3;
+
+	private final Map _map;
+	private final double _agentRadius;
+	private final HeuristicInterface _heuristic;
+	private final SearchMetrics _metrics;
+	private final BooleanSupplier _stopped;
+	private final LongIntHashMap _freeVoxels; //1 if the voxel is inside the map, 2 if not
+	private AgentPosition _goal;
+	private boolean _searchStopped;
+
+	/**
+	 * @param heuristic front to end heuristic, used toward the goal and toward the start
+	 * @param metrics expansions and generations of both searches are counted here. Can be null
+	 * @param stopped checked on every expansion, the search returns when it is true (e.g. timeout)
+	 */
+	public BidirectionalSearch(Map map, double agentRadius, HeuristicInterface heuristic, SearchMetrics metrics, BooleanSupplier stopped) {
+		_map = map;
+		_agentRadius = agentRadius;
+		_heuristic = heuristic;
+		_metrics = metrics;
+		_stopped = stopped;
+		_freeVoxels = new LongIntHashMap(1024, 0);
+	}
+
+	/**
+	 * @param start voxel of the start, with integer coordinates
+	 * @param goal voxel of the goal, with integer coordinates
+	 * @return voxels of a shortest path from start to goal, both included. Null if there is none or the search was stopped
+	 */
+	public List<AgentPosition> findPath(AgentPosition start, AgentPosition goal) {
+		_searchStopped = false;
+		_goal = goal;
+		Frontier forward = new Frontier(start, new AStarState(goal));
+		Frontier backward = new Frontier(goal, new AStarState(start));
+		float best = Float.MAX_VALUE; //length of the best path found through a voxel reached by both searches
+		long meeting = 0;
+		while(true) {
+			float forwardPriority = forward.peek(PRIORITY);
+			float backwardPriority = backward.peek(PRIORITY);
+			if(forwardPriority == Float.MAX_VALUE || backwardPriority == Float.MAX_VALUE) {
+				break;
+			}
+			float bound = Math.max(lower(Math.min(forwardPriority, backwardPriority)), lower(Math.max(forward.peek(F), backward.peek(F))));
+			bound = Math.max(bound, lower(forward.peek(G)) + lower(backward.peek(G)) + MIN_MOVE_COST);
+			if(best <= bound) {
+				break;
+			}
+			if(_stopped.getAsBoolean()) {
+				_searchStopped = true;
+				return null;
+			}
+			//equal priorities: the search with the smaller open list, so both ends dive toward the middle
+			Frontier current;
+			if(forwardPriority != backwardPriority) {
+				current = forwardPriority < backwardPriority ? forward : backward;
+			}
+			else {
+				current = forward._open[PRIORITY].size() <= backward._open[PRIORITY].size() ? forward : backward;
+			}
+			Frontier other = current == forward ? backward : forward;
+			int record = current._open[PRIORITY].pop();
+			current._closed[record] = true;
+			if(_metrics != null) {
+				_metrics.nodeExpanded();
+			}
+			int x = current._coords[3 * record];
+			int y = current._coords[3 * record + 1];
+			int z = current._coords[3 * record + 2];
+			for(Move move : Move.NEIGHBORHOOD) {
+				if(move == Move.W) {
+					continue;
+				}
+				int nx = x + move.getDx();
+				int ny = y + move.getDy();
+				int nz = z + move.getDz();
+				long key = VoxelKey.pack(nx, ny, nz, start.getZone());
+				if(!isFree(key, nx, ny, nz)) {
+					continue;
+				}
+				float g = current._g[record] + (float)move.getDistance();
+				if(!current.update(key, nx, ny, nz, g, record)) {
+					continue;
+				}
+				if(_metrics != null) {
+					_metrics.nodeGenerated(forward._open[PRIORITY].size() + backward._open[PRIORITY].size());
+				}
+				int otherRecord = other._index.get(key);
+				if(otherRecord >= 0 && g + other._g[otherRecord] < best) {
+					best = g + other._g[otherRecord];
+					meeting = key;
+				}
+			}
+		}
+		if(best == Float.MAX_VALUE) {
+			return null;
+		}
+		List<AgentPosition> path = forward.getPath(meeting);
+		Collections.reverse(path);
+		List<AgentPosition> toGoal = backward.getPath(meeting);
+		path.addAll(toGoal.subList(1, toGoal.size()));
+		return path;
+	}
+
+	/**
+	 * Keys are rounded to the nearest multiple of KEY_PRECISION, so the stop bound uses the smallest value a key can
+	 * stand for: the bound stays below the optimal length and the search never stops on a longer path
+	 */
+	private static float lower(float key) {
+		return key == Float.MAX_VALUE ? key : key - (float)(KEY_PRECISION / 2) - Math.ulp(key);
+	}
+
+	/**
+	 * @return true if the last call to findPath returned because the search was stopped
+	 */
+	public boolean isSearchStopped() {
+		return _searchStopped;
+	}
+
+	private boolean isFree(long key, int x, int y, int z) {
+		int free = _freeVoxels.get(key);
+		if(free == 0) {
+			free = _map.inMap(createPosition(x, y, z), _goal, _agentRadius) ? 1 : 2;
+			_freeVoxels.put(key, free);
+		}
+		return free == 1;
+	}
+
+	private AgentPosition createPosition(int x, int y, int z) {
+		return new AgentPosition(x, y, z, -1, -1, _goal.getZone(), _goal.getLatitudeBand());
+	}
+
+	/**
+	 * Voxels reached by one of the searches, in primitive arrays indexed by a LongIntHashMap from voxel key
+	 */
+	private class Frontier {
+		private final LongIntHashMap _index = new LongIntHashMap(1024, -1);
+		//open lists by priority, f and g. Entries are dropped when they no longer match their voxel
+		private final FloatIntHeap[] _open = {new FloatIntHeap(), new FloatIntHeap(), new FloatIntHeap()};
+		private final AStarState _target;
+		private int[] _coords = new int[3 * 1024];
+		private float[] _g = new float[1024];
+		private float[] _h = new float[1024];
+		private int[] _parent = new int[1024];
+		private boolean[] _closed = new boolean[1024];
+		private int _size = 0;
+
+		Frontier(AgentPosition root, AStarState target) {
+			_target = target;
+			update(VoxelKey.pack(root), (int)root.getX(), (int)root.getY(), (int)root.getZ(), 0, -1);
+		}
+
+		/**
+		 * Records the voxel, or its better g, and pushes it to the open list
+		 * @return false if the voxel was already reached with a g that is not worse
+		 */
+		boolean update(long key, int x, int y, int z, float g, int parent) {
+			int record = _index.get(key);
+			if(record < 0) {
+				record = add(key, x, y, z);
+			}
+			else if(g >= _g[record]) {
+				return false;
+			}
+			_g[record] = g;
+			_parent[record] = parent;
+			_closed[record] = false;
+			for(int type = PRIORITY; type <= G; type++) {
+				//like FValueComparator, equal keys are popped by larger g
+				_open[type].push(getKey(record, type), g, record);
+			}
+			return true;
+		}
+
+		private int add(long key, int x, int y, int z) {
+			if(_size == _g.length) {
+				_coords = Arrays.copyOf(_coords, 6 * _size);
+				_g = Arrays.copyOf(_g, 2 * _size);
+				_h = Arrays.copyOf(_h, 2 * _size);
+				_parent = Arrays.copyOf(_parent, 2 * _size);
+				_closed = Arrays.copyOf(_closed, 2 * _size);
+			}
+			_coords[3 * _size] = x;
+			_coords[3 * _size + 1] = y;
+			_coords[3 * _size + 2] = z;
+			long start = _metrics == null ? 0 : _metrics.startTimer();
+			_h[_size] = _heuristic.calcHeuristic(new AStarState(createPosition(x, y, z)), _target);
+			if(_metrics != null) {
+				_metrics.addHeuristicTime(start);
+			}
+			_index.put(key, _size);
+			return _size++;
+		}
+
+		/**
+		 * Keys are rounded (in double, any key fits), so the rounding errors of the sums of move costs do not decide between
+		 * equal keys
+		 */
+		private float getKey(int record, int type) {
+			float g = _g[record];
+			float key;
+			switch(type) {
+			case PRIORITY:
+				key = Math.max(g + _h[record], 2 * g);
+				break;
+			case F:
+				key = g + _h[record];
+				break;
+			default:
+				key = g;
+			}
+			return (float)(Math.rint(key / KEY_PRECISION) * KEY_PRECISION);
+		}
+
+		/**
+		 * Drops the entries of the open list whose voxel was closed or reached again with a better g
+		 * @return smallest key of an open voxel, Float.MAX_VALUE if there is none
+		 */
+		float peek(int type) {
+			FloatIntHeap open = _open[type];
+			while(!open.isEmpty()) {
+				int record = open.peekValue();
+				if(!_closed[record] && open.peekKey() == getKey(record, type)) {
+					return open.peekKey();
+				}
+				open.pop();
+			}
+			return Float.MAX_VALUE;
+		}
+
+		/**
+		 * @return voxels from the voxel of the key back to the root of this search
+		 */
+		List<AgentPosition> getPath(long key) {
+			List<AgentPosition> path = new ArrayList<AgentPosition>();
+			for(int record = _index.get(key); record >= 0; record = _parent[record]) {
+				path.add(createPosition(_coords[3 * record], _coords[3 * record + 1], _coords[3 * record + 2]));
+			}
+			return path;
+		}
+	}
+}
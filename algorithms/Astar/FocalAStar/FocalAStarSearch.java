@@ -4,6 +4,8 @@ import agents.Agent;
 import algorithms.Astar.AStarSearch;
 import algorithms.Astar.AStarState;
 import algorithms.heuristics.HeuristicInterface;
+import algorithms.openlists.FocalOpenList;
+import algorithms.openlists.OpenList;
 import algorithms.trees.Node;
 import exceptions.SolutionNotFoundException;
 import geometry.coords.AgentPosition;
@@ -23,6 +25,14 @@ public class FocalAStarSearch extends AStarSearch {
 		searchFocal(_weight);
 	}
 	
+	/**
+	 * Open and focal lists share one container, the bucket width is not used
+	 */
+	@Override
+	public OpenList<Node> createOpenList() {
+		return new FocalOpenList(_focalComparator);
+	}
+	
 	@Override
 	public void reset(long timeLimit, long initialTime) {
 		super.reset(timeLimit, initialTime);
@@ -37,16 +47,14 @@ public class FocalAStarSearch extends AStarSearch {
 	}
 	
 	@Override
-	public Node getNextBestNode() {
-		Node node = _focalList.poll();
-		_openList.remove(node);
-		return node;
+	public Node pollNextNode() {
+		return _focalList.pollFocal();
 	}
 	
 	@Override
 	public void otherNodeUpdates(Node node) {
 		if(node.getState().getLowerBound() <= _lowerBound * _weight) {
-			_focalList.add(node);
+			_focalList.addToFocal(node);
 		}
 	}
 	
@@ -75,7 +83,7 @@ public class FocalAStarSearch extends AStarSearch {
 		catch(SolutionNotFoundException e) {
 			validGoal = false;
 			//check ETA validity for all nodes in the focal list
-			for(Node node : _focalList) {
+			for(Node node : _focalList.getFocalNodes()) {
 				try {
 					checkETAValidity((AgentPosition)((AStarState)node.getParent().getState()).getPosition());
 					//if at least one was found, continue the search
@@ -0,0 +1,377 @@
+package algorithms.Astar.JPS;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import agents.Agent;
+import agents.path.PathLine;
+import algorithms.Astar.AStarSearch;
+import algorithms.Astar.AStarState;
+import algorithms.Astar.VoxelKey;
+import algorithms.collections.LongIntHashMap;
+import algorithms.heuristics.BatchHeuristicInterface;
+import algorithms.heuristics.HeuristicInterface;
+import algorithms.trees.Node;
+import algorithms.trees.State;
+import geometry.coords.AgentPosition;
+import geometry.coords.PointInterface;
+import geometry.coords.UTMCoord;
+import map.Map;
+import utils.AgentUtils;
+
+/**
+ * Jump point search over the 26 voxel neighborhood. Instead of adding every neighbor to the open list, each successor
+ * direction is followed until the goal, a voxel with a forced neighbor or (for diagonal directions) a voxel from which
+ * one of the component directions reaches a jump point. Only these jump points are added, so the open list is much
+ * smaller than the one of A* on sparse maps.
+ *
+ * Jumps are computed over the static map (Map.inMap). The segment to each jump point is then checked with Map.isMoveValid
+ * at the times of the agent: if a move is not valid (e.g. an agent obstacle), the jump stops at the last valid voxel and
+ * that state is expanded over the whole neighborhood like in A*, wait move included. When the first move of a jump is
+ * not valid, the neighbors of A* are added to the jump points. Their states are expanded with jumps again, in every
+ * direction, so the search only falls back to A* (and only waits) around agent obstacles.
+ *
+ * A neighbor of a voxel is pruned when there is a path from the parent to the neighbor that does not go through the
+ * voxel and is not longer. The pruned neighborhoods only depend on the direction and the blocked voxels around, so they
+ * are computed once for each combination.
+ *
+ * The result of a jump is stored for every voxel it goes through, by direction, so each voxel is followed at most once
+ * in each direction during a search (a diagonal jump checks its component directions at every step, which would be
+ * O(N^3) in open airspace without it). The jump points that are further than MAX_JUMP moves are replaced by the voxel
+ * MAX_JUMP moves away, which keeps the segments validated at each expansion short.
+ */
+public class JPSSearch extends AStarSearch {
+
+	private static final int CENTER = 13; //cell of the voxel itself in a 3x3x3 block
+	private static final int FORCED = 1 << 27; //flag of the successor masks: there are forced neighbors
+	private static final double EPSILON = 1e-6;
+	private static final int MAX_JUMP = 64; //moves to the furthest jump point added at once
+	private static final int UNKNOWN = Integer.MIN_VALUE;
+
+	private LongIntHashMap _freeVoxels; //1 if the voxel is inside the map, 2 if not
+	private LongIntHashMap _blockedCells; //mask of the blocked cells of the 3x3x3 block around the voxel
+	private LongIntHashMap _successors; //successor mask by direction and blocked cells
+	private LongIntHashMap[] _jumps; //moves to the jump point (-1 for none) from the voxel, by direction
+	private int _goalX, _goalY, _goalZ, _goalZone;
+	private boolean _stopped;
+
+	public JPSSearch(Map map, Agent agent, Node root, HeuristicInterface heuristic) {
+		super(map, agent, root, heuristic);
+		_freeVoxels = new LongIntHashMap(1024, 0);
+		_blockedCells = new LongIntHashMap(1024, -1);
+		_successors = new LongIntHashMap(1024, -1);
+		_jumps = new LongIntHashMap[27];
+		for(int cell = 0; cell < 27; cell++) {
+			if(cell != CENTER) {
+				_jumps[cell] = new LongIntHashMap(1024, UNKNOWN);
+			}
+		}
+	}
+
+	@Override
+	public void reset(long timeLimit, long initialTime) {
+		super.reset(timeLimit, initialTime);
+		//agent obstacles and goals change between searches, the free voxels and the jumps are computed again
+		_freeVoxels.clear();
+		_blockedCells.clear();
+		for(LongIntHashMap jumps : _jumps) {
+			if(jumps != null) {
+				jumps.clear();
+			}
+		}
+		_stopped = false;
+	}
+
+	/**
+	 * The stop is also checked inside the jumps. Threaded searches clear the interrupt flag when they read it, so the
+	 * result is kept for the search loop.
+	 */
+	@Override
+	public boolean isSearchStopped() {
+		if(!_stopped) {
+			_stopped = super.isSearchStopped();
+		}
+		return _stopped;
+	}
+
+	@Override
+	public void createGoalState() {
+		super.createGoalState();
+		_goalX = (int)_goalVoxel.getX();
+		_goalY = (int)_goalVoxel.getY();
+		_goalZ = (int)_goalVoxel.getZ();
+		_goalZone = _goalVoxel.getZone();
+	}
+
+	@Override
+	public void expandNode() {
+		AStarState current = (AStarState)_bestNode.getState();
+		List<State> neighbors;
+		if(isInterrupted(current)) {
+			neighbors = current.expand(_map, _agent, _metrics, null, true);
+		}
+		else {
+			neighbors = getJumpPoints(current);
+		}
+		if(_heuristic instanceof BatchHeuristicInterface) {
+			calcBatchHeuristics(neighbors);
+		}
+		processNeighbors(neighbors, _bestNode, _goal);
+	}
+
+	private static boolean isInterrupted(State state) {
+		return state instanceof JPSState && ((JPSState)state).isInterrupted();
+	}
+
+	/**
+	 * @return states of the jump points reached from the state, plus the neighbors of A* if a first move was not valid
+	 */
+	private List<State> getJumpPoints(AStarState current) {
+		List<State> jumpPoints = new ArrayList<State>();
+		PointInterface position = current.getPosition();
+		int x = (int)position.getX();
+		int y = (int)position.getY();
+		int z = (int)position.getZ();
+		int zone = ((UTMCoord)position).getZone();
+		char band = ((UTMCoord)position).getLatitudeBand();
+		//direction of the jump into the state. None for the root and for the states generated like in A*
+		int dx = 0, dy = 0, dz = 0;
+		if(current instanceof JPSState) {
+			PointInterface parent = ((AStarState)_bestNode.getParent().getState()).getPosition();
+			dx = Integer.signum(x - (int)parent.getX());
+			dy = Integer.signum(y - (int)parent.getY());
+			dz = Integer.signum(z - (int)parent.getZ());
+		}
+		int successors = getSuccessors(x, y, z, zone, band, dx, dy, dz);
+		boolean blockedMove = false;
+		for(int cell = 0; cell < 27; cell++) {
+			if((successors & (1 << cell)) == 0) {
+				continue;
+			}
+			int sx = cell / 9 - 1;
+			int sy = cell / 3 % 3 - 1;
+			int sz = cell % 3 - 1;
+			int steps = jump(x, y, z, zone, band, sx, sy, sz);
+			if(_stopped) {
+				return jumpPoints;
+			}
+			if(steps < 0) {
+				continue;
+			}
+			steps = Math.min(steps, MAX_JUMP);
+			int valid = validateJump((AgentPosition)position, x, y, z, zone, band, sx, sy, sz, steps);
+			if(valid < 0) {
+				return jumpPoints;
+			}
+			if(valid > 0) {
+				AgentPosition jumpPoint = new AgentPosition(x + valid * sx, y + valid * sy, z + valid * sz, -1, -1, zone, band);
+				AgentUtils.updateTimestep(jumpPoint, (AgentPosition)position, _agent.getSpeed());
+				jumpPoints.add(new JPSState(jumpPoint, valid < steps));
+			}
+			blockedMove |= valid == 0;
+		}
+		if(blockedMove) {
+			//next to an agent obstacle, the neighbors are also generated as in A* so the agent can wait or go around it
+			jumpPoints.addAll(current.expand(_map, _agent, _metrics, null, true));
+		}
+		return jumpPoints;
+	}
+
+	/**
+	 * Follows a direction over the static map, until a voxel whose jump in the same direction is already known
+	 * @return number of moves to the jump point, -1 if the direction reaches an obstacle or the border of the map first
+	 * or if the search was stopped
+	 */
+	private int jump(int x, int y, int z, int zone, char band, int dx, int dy, int dz) {
+		LongIntHashMap jumps = _jumps[cell(dx, dy, dz)];
+		boolean diagonal = Math.abs(dx) + Math.abs(dy) + Math.abs(dz) > 1;
+		int steps = 0;
+		int result;
+		while(true) {
+			int known = jumps.get(VoxelKey.pack(x + steps * dx, y + steps * dy, z + steps * dz, zone));
+			if(known != UNKNOWN) {
+				result = known < 0 ? -1 : steps + known;
+				break;
+			}
+			if(isSearchStopped()) {
+				return -1;
+			}
+			steps++;
+			int nx = x + steps * dx;
+			int ny = y + steps * dy;
+			int nz = z + steps * dz;
+			if(!isFree(nx, ny, nz, zone, band)) {
+				result = -1;
+				break;
+			}
+			if((nx == _goalX && ny == _goalY && nz == _goalZ && zone == _goalZone)
+					|| (getSuccessors(nx, ny, nz, zone, band, dx, dy, dz) & FORCED) != 0
+					|| (diagonal && componentJumps(nx, ny, nz, zone, band, dx, dy, dz))) {
+				result = steps;
+				break;
+			}
+		}
+		if(_stopped) {
+			return -1;
+		}
+		//the voxels before the result share its jump point
+		for(int i = 0; i < steps; i++) {
+			jumps.put(VoxelKey.pack(x + i * dx, y + i * dy, z + i * dz, zone), result < 0 ? -1 : result - i);
+		}
+		return result;
+	}
+
+	/**
+	 * Diagonal directions stop where one of their component directions finds a jump point
+	 */
+	private boolean componentJumps(int x, int y, int z, int zone, char band, int dx, int dy, int dz) {
+		for(int sub = 1; sub < 7; sub++) {
+			int sx = (sub & 1) != 0 ? dx : 0;
+			int sy = (sub & 2) != 0 ? dy : 0;
+			int sz = (sub & 4) != 0 ? dz : 0;
+			if((sx == dx && sy == dy && sz == dz) || (sx == 0 && sy == 0 && sz == 0)) {
+				continue;
+			}
+			if(jump(x, y, z, zone, band, sx, sy, sz) >= 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks the segment to the jump point with the map at the times of the agent, move by move if the whole segment
+	 * is not valid
+	 * @return number of valid moves from the start of the segment, -1 if the search was stopped
+	 */
+	private int validateJump(AgentPosition from, int x, int y, int z, int zone, char band, int dx, int dy, int dz, int steps) {
+		AgentPosition end = new AgentPosition(x + steps * dx, y + steps * dy, z + steps * dz, -1, -1, zone, band);
+		AgentUtils.updateTimestep(end, from, _agent.getSpeed());
+		if(isMoveValid(from, end)) {
+			return steps;
+		}
+		AgentPosition previous = from;
+		for(int i = 1; i < steps; i++) {
+			if(isSearchStopped()) {
+				return -1;
+			}
+			AgentPosition next = new AgentPosition(x + i * dx, y + i * dy, z + i * dz, -1, -1, zone, band);
+			AgentUtils.updateTimestep(next, previous, _agent.getSpeed());
+			if(!isMoveValid(previous, next)) {
+				return i - 1;
+			}
+			previous = next;
+		}
+		return isMoveValid(previous, end) ? steps : steps - 1;
+	}
+
+	private boolean isMoveValid(AgentPosition from, AgentPosition to) {
+		long start = _metrics.startTimer();
+		boolean valid = _map.isMoveValid(new PathLine(from, to, _agent), _goalVoxel);
+		_metrics.addMoveValidationTime(start);
+		return valid;
+	}
+
+	private boolean isFree(int x, int y, int z, int zone, char band) {
+		long key = VoxelKey.pack(x, y, z, zone);
+		int free = _freeVoxels.get(key);
+		if(free == 0) {
+			free = _map.inMap(new AgentPosition(x, y, z, -1, -1, zone, band), _goalVoxel, _agent.getRadius()) ? 1 : 2;
+			_freeVoxels.put(key, free);
+		}
+		return free == 1;
+	}
+
+	/**
+	 * @param dx direction of the move into the voxel, all 0 for no direction
+	 * @return mask of the cells of the 3x3x3 block around the voxel that are successors, with the FORCED flag if any of
+	 * them is not a natural successor of the direction
+	 */
+	private int getSuccessors(int x, int y, int z, int zone, char band, int dx, int dy, int dz) {
+		long voxel = VoxelKey.pack(x, y, z, zone);
+		int blocked = _blockedCells.get(voxel);
+		if(blocked < 0) {
+			blocked = 0;
+			for(int cell = 0; cell < 27; cell++) {
+				if(cell != CENTER && !isFree(x + cell / 9 - 1, y + cell / 3 % 3 - 1, z + cell % 3 - 1, zone, band)) {
+					blocked |= 1 << cell;
+				}
+			}
+			_blockedCells.put(voxel, blocked);
+		}
+		long key = ((long)cell(dx, dy, dz) << 27) | blocked;
+		int successors = _successors.get(key);
+		if(successors < 0) {
+			successors = computeSuccessors(dx, dy, dz, blocked);
+			_successors.put(key, successors);
+		}
+		return successors;
+	}
+
+	/**
+	 * Shortest paths from the parent to the cells of the block that do not go through the voxel. A cell that is not a
+	 * natural successor (all its non zero components equal to the ones of the direction) is forced when those paths are
+	 * longer than going through the voxel
+	 */
+	private static int computeSuccessors(int dx, int dy, int dz, int blocked) {
+		int free = ~blocked & ((1 << 27) - 1) & ~(1 << CENTER);
+		if(dx == 0 && dy == 0 && dz == 0) {
+			return free;
+		}
+		double[] distances = new double[27];
+		Arrays.fill(distances, Double.MAX_VALUE);
+		boolean[] done = new boolean[27];
+		distances[cell(-dx, -dy, -dz)] = 0;
+		while(true) {
+			int current = -1;
+			for(int c = 0; c < 27; c++) {
+				if((free & (1 << c)) != 0 && !done[c] && distances[c] < Double.MAX_VALUE && (current < 0 || distances[c] < distances[current])) {
+					current = c;
+				}
+			}
+			if(current < 0) {
+				break;
+			}
+			done[current] = true;
+			for(int c = 0; c < 27; c++) {
+				if((free & (1 << c)) == 0 || done[c]) {
+					continue;
+				}
+				int ax = Math.abs(c / 9 - current / 9);
+				int ay = Math.abs(c / 3 % 3 - current / 3 % 3);
+				int az = Math.abs(c % 3 - current % 3);
+				if(ax > 1 || ay > 1 || az > 1) {
+					continue;
+				}
+				distances[c] = Math.min(distances[c], distances[current] + Math.sqrt(ax + ay + az));
+			}
+		}
+		double toVoxel = Math.sqrt(Math.abs(dx) + Math.abs(dy) + Math.abs(dz));
+		int successors = 0;
+		for(int c = 0; c < 27; c++) {
+			if((free & (1 << c)) == 0) {
+				continue;
+			}
+			int cx = c / 9 - 1;
+			int cy = c / 3 % 3 - 1;
+			int cz = c % 3 - 1;
+			if((cx == 0 || cx == dx) && (cy == 0 || cy == dy) && (cz == 0 || cz == dz)) {
+				successors |= 1 << c;
+			}
+			else if(distances[c] > toVoxel + Math.sqrt(Math.abs(cx) + Math.abs(cy) + Math.abs(cz)) + EPSILON) {
+				successors |= (1 << c) | FORCED;
+			}
+		}
+		return successors;
+	}
+
+	private static int cell(int dx, int dy, int dz) {
+		return (dx + 1) * 9 + (dy + 1) * 3 + dz + 1;
+	}
+
+	@Override
+	public String getAlgorithmName() {
+		return "JPS";
+	}
+}
@@ -0,0 +1,21 @@
+package algorithms.Astar.JPS;
+
+import algorithms.Astar.AStarState;
+import geometry.coords.AgentPosition;
+
+public class JPSState extends AStarState {
+
+	private boolean _interrupted; //a jump stopped here because a move was not valid (e.g. an agent obstacle)
+
+	public JPSState(AgentPosition position, boolean interrupted) {
+		super(position);
+		_interrupted = interrupted;
+	}
+
+	/**
+	 * @return true if the state is expanded over the whole neighborhood, as in A*, instead of by jumps
+	 */
+	public boolean isInterrupted() {
+		return _interrupted;
+	}
+}
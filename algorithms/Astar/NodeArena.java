@@ -0,0 +1,190 @@
+package algorithms.Astar;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import algorithms.collections.LongIntHashMap;
+import algorithms.trees.Node;
+
+/**
+ * Records of the voxels seen by one A* search, stored as parallel arrays (voxel key, g, h, timestep, parent record,
+ * closed flag and the best node generated for the voxel) and indexed by a LongIntHashMap from voxel key to record.
+ * Arenas are pooled in one pool shared by all threads: a search acquires one on reset and releases it when it finishes,
+ * so nested low level searches (CBS, ID, CA*) reuse the arrays of the previous ones instead of allocating new tables,
+ * also when each search runs on a new virtual thread. The pool keeps at most MAX_POOLED arenas, the others are left to
+ * the garbage collector. Clearing is O(1).
+ */
+public class NodeArena {
+
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final int MAX_POOLED = 2 * Runtime.getRuntime().availableProcessors();
+	private static final ConcurrentLinkedDeque<NodeArena> _pool = new ConcurrentLinkedDeque<NodeArena>();
+	private static final AtomicInteger _pooled = new AtomicInteger();
+
+	private long[] _keys;
+	private double[] _g;
+	private double[] _h;
+	private double[] _timestep;
+	private int[] _parent;
+	private boolean[] _closed;
+	private Node[] _nodes;
+	private int _size;
+	private int _closedCount;
+	private final LongIntHashMap _index;
+
+	public NodeArena() {
+		_keys = new long[INITIAL_CAPACITY];
+		_g = new double[INITIAL_CAPACITY];
+		_h = new double[INITIAL_CAPACITY];
+		_timestep = new double[INITIAL_CAPACITY];
+		_parent = new int[INITIAL_CAPACITY];
+		_closed = new boolean[INITIAL_CAPACITY];
+		_nodes = new Node[INITIAL_CAPACITY];
+		_index = new LongIntHashMap(INITIAL_CAPACITY, -1);
+		_size = 0;
+		_closedCount = 0;
+	}
+
+	/**
+	 * @return an empty arena from the pool, or a new one
+	 */
+	public static NodeArena acquire() {
+		NodeArena arena = _pool.pollFirst();
+		if(arena == null) {
+			return new NodeArena();
+		}
+		_pooled.decrementAndGet();
+		return arena;
+	}
+
+	/**
+	 * Drops the node references and returns the arena to the pool, unless the pool is full.
+	 * The arena must not be used after this call.
+	 */
+	public void release() {
+		Arrays.fill(_nodes, 0, _size, null);
+		clear();
+		if(_pooled.incrementAndGet() <= MAX_POOLED) {
+			_pool.offerFirst(this);
+		}
+		else {
+			_pooled.decrementAndGet();
+		}
+	}
+
+	public void clear() {
+		_size = 0;
+		_closedCount = 0;
+		_index.clear();
+	}
+
+	/**
+	 * @return the record of the voxel, -1 if there is none
+	 */
+	public int find(long key) {
+		return _index.get(key);
+	}
+
+	/**
+	 * Creates the record of a voxel that has none
+	 * @param parent record of the parent node, -1 for the root
+	 * @return the new record
+	 */
+	public int add(long key, Node node, int parent) {
+		if(_size == _keys.length) {
+			grow();
+		}
+		int record = _size++;
+		_keys[record] = key;
+		_closed[record] = false;
+		set(record, node, parent);
+		_index.put(key, record);
+		return record;
+	}
+
+	/**
+	 * Replaces the best node of a record
+	 */
+	public void set(int record, Node node, int parent) {
+		_g[record] = node.getState().getGVal();
+		_h[record] = node.getState().getHVal();
+		_timestep[record] = ((AStarState)node.getState()).getTimestep();
+		_parent[record] = parent;
+		_nodes[record] = node;
+	}
+
+	/**
+	 * Makes any later path to the voxel better than the recorded one, e.g. when the recorded node turned out to be
+	 * unreachable
+	 */
+	public void discardG(int record) {
+		_g[record] = Double.POSITIVE_INFINITY;
+	}
+
+	public void close(int record) {
+		if(!_closed[record]) {
+			_closed[record] = true;
+			_closedCount++;
+		}
+	}
+
+	/**
+	 * Opens all the records again, e.g. for a new iteration of an anytime search
+	 */
+	public void clearClosed() {
+		Arrays.fill(_closed, 0, _size, false);
+		_closedCount = 0;
+	}
+
+	private void grow() {
+		int capacity = _keys.length << 1;
+		_keys = Arrays.copyOf(_keys, capacity);
+		_g = Arrays.copyOf(_g, capacity);
+		_h = Arrays.copyOf(_h, capacity);
+		_timestep = Arrays.copyOf(_timestep, capacity);
+		_parent = Arrays.copyOf(_parent, capacity);
+		_closed = Arrays.copyOf(_closed, capacity);
+		_nodes = Arrays.copyOf(_nodes, capacity);
+	}
+
+	/***********************************************************/
+	/* Getters												   */
+	/***********************************************************/
+
+	public int size() {
+		return _size;
+	}
+
+	public int getClosedCount() {
+		return _closedCount;
+	}
+
+	public long getKey(int record) {
+		return _keys[record];
+	}
+
+	public double getG(int record) {
+		return _g[record];
+	}
+
+	public double getH(int record) {
+		return _h[record];
+	}
+
+	public double getTimestep(int record) {
+		return _timestep[record];
+	}
+
+	public int getParent(int record) {
+		return _parent[record];
+	}
+
+	public boolean isClosed(int record) {
+		return _closed[record];
+	}
+
+	public Node getNode(int record) {
+		return _nodes[record];
+	}
+}
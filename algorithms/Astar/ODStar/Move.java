@@ -15,8 +15,53 @@ public enum Move {
      * W := wait
      * N := no move yet
      */
-    W, X, Y, Z, A, B, C,
-    XY, XZ, YZ, XB, XC, AY, AZ, AB, AC, YC, ZB,
-    XYC, XBZ, XBC, AYZ, ABZ, AYC, ABC, XYZ,
-    N
+    W(0, 0, 0), X(1, 0, 0), Y(0, 1, 0), Z(0, 0, 1), A(-1, 0, 0), B(0, -1, 0), C(0, 0, -1),
+    XY(1, 1, 0), XZ(1, 0, 1), YZ(0, 1, 1), XB(1, -1, 0), XC(1, 0, -1), AY(-1, 1, 0), AZ(-1, 0, 1), AB(-1, -1, 0), AC(-1, 0, -1),
+    YC(0, 1, -1), ZB(0, -1, 1), BC(0, -1, -1),
+    XYC(1, 1, -1), XBZ(1, -1, 1), XBC(1, -1, -1), AYZ(-1, 1, 1), ABZ(-1, -1, 1), AYC(-1, 1, -1), ABC(-1, -1, -1), XYZ(1, 1, 1),
+    N(0, 0, 0);
+
+    /**
+     * Wait and the 26 moves, ordered by x, then y, then z offset (same order as the loops over -1..1 used before)
+     */
+    public static final Move[] NEIGHBORHOOD = new Move[27];
+
+    private final int dx;
+    private final int dy;
+    private final int dz;
+    private final double distance;
+
+    static {
+        for ( Move move : values() ) {
+            if ( move != N ) {
+                NEIGHBORHOOD[(move.dx + 1) * 9 + (move.dy + 1) * 3 + (move.dz + 1)] = move;
+            }
+        }
+    }
+
+    Move(int dx, int dy, int dz) {
+        this.dx = dx;
+        this.dy = dy;
+        this.dz = dz;
+        this.distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    public int getDx() {
+        return dx;
+    }
+
+    public int getDy() {
+        return dy;
+    }
+
+    public int getDz() {
+        return dz;
+    }
+
+    /**
+     * @return length of the move in voxels (1, sqrt 2 or sqrt 3), 0 for wait
+     */
+    public double getDistance() {
+        return distance;
+    }
 }
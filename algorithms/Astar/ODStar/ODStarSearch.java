@@ -8,6 +8,9 @@ import algorithms.comparators.AgentPathStartTimeComparator;
 import algorithms.comparators.FValueComparator;
 import algorithms.comparators.WeightedFValueComparator;
 import algorithms.heuristics.HeuristicInterface;
+import algorithms.heuristics.IncrementalHeuristicInterface;
+import algorithms.openlists.BinaryHeapOpenList;
+import algorithms.openlists.OpenList;
 import algorithms.trees.Node;
 import algorithms.trees.State;
 import exceptions.SolutionNotFoundException;
@@ -50,15 +53,25 @@ public class ODStarSearch extends BFSearch {
         State start = new ODStarState(0, -1, -1, agentPositions, 0, true, agents, _map);
 
         //compute and set heuristic
+        long heuristicStart = _metrics.startTimer();
         start.setHVal(_heuristic.calcHeuristic(start, _goal));
+        _metrics.addHeuristicTime(heuristicStart);
 
         //add state to root node
         _root.setState(start);
     }
 
+    /**
+     * OD states never need the worst node, a plain binary heap is enough
+     */
+    @Override
+    public OpenList<Node> createOpenList(){
+        return new BinaryHeapOpenList<>( _openComparator );
+    }
+
     @Override
     public void expandNode(){
-        List<State> neighbors = ((ODStarState)_bestNode.getState()).expand(_map);
+        List<State> neighbors = ((ODStarState)_bestNode.getState()).expand(_map, _metrics);
         processNeighbors( neighbors, _bestNode, _goal );
     }
 
@@ -97,7 +110,10 @@ public class ODStarSearch extends BFSearch {
             boolean standardState = ((ODStarState)neighbor).isStandardState();
 
             // intermediate nodes that are duplicate standard nodes are not expanded
-            if (!goalNode && expanded && !standardState) { continue; }
+            if (!goalNode && expanded && !standardState) {
+                _metrics.duplicatePruned();
+                continue;
+            }
 
             // compute the gValue of node
             computeAndUpdateGCost( neighbor, current.getState(), goal );
@@ -105,12 +121,12 @@ public class ODStarSearch extends BFSearch {
 
             // add to open list IF conditions met
             try {
-                if ( expanded && !isduplicate ) { ; }
+                if ( expanded && !isduplicate ) { _metrics.duplicatePruned(); }
                 else if ( goalNode || !isduplicate || standardState || newNode.getState().getGVal() < createdNodes.get( newNode ).getState().getGVal() ) {
                     createdNodes.put(newNode, newNode);
-                    //_openList.add( newNode );
-                    openList.add( newNode );
+                    addToOpenList( newNode );
                 }
+                else { _metrics.duplicatePruned(); }
             } catch (NullPointerException e){
                 System.out.println(e);
             }
@@ -131,7 +147,15 @@ public class ODStarSearch extends BFSearch {
 
     private Node createNewNode( Node current, State neighbor, State goal, double newGvalue ){
         setNodeTimeStep( neighbor );
-        neighbor.setHVal( _heuristic.calcHeuristic( neighbor, goal ) );
+        long start = _metrics.startTimer();
+        // only the agent of the parent state moved, incremental heuristics just update its cost
+        if ( _heuristic instanceof IncrementalHeuristicInterface ){
+            int movedAgentId = ((ODStarState)current.getState()).getCurrentAgentId();
+            neighbor.setHVal( ((IncrementalHeuristicInterface)_heuristic).calcHeuristic( current.getState(), neighbor, movedAgentId ) );
+        } else {
+            neighbor.setHVal( _heuristic.calcHeuristic( neighbor, goal ) );
+        }
+        _metrics.addHeuristicTime( start );
         return new Node(current, neighbor);
     }
 
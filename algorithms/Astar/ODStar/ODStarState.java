@@ -3,6 +3,7 @@ package algorithms.Astar.ODStar;
 import agents.Agent;
 import agents.path.PathLine;
 import algorithms.Astar.AStarState;
+import algorithms.metrics.SearchMetrics;
 import algorithms.trees.State;
 import geometry.coords.AgentPosition;
 import geometry.coords.PointInterface;
@@ -87,12 +88,19 @@ public class ODStarState extends State{
      * @return list of all legal neighbor states
      */
     public List<State> expand( Map map ){
+        return expand( map, null );
+    }
+
+    /**
+     * @param metrics of the search, used to time the move validations. Can be null
+     */
+    public List<State> expand( Map map, SearchMetrics metrics ){
 
             Agent currentAgent = agents.get(currentAgentId);
             // convertPositionToVoxel returns a UTM coordinate in integer form (i.e. infinite number of points can be the same voxel)
             PointInterface goalPosition = Utils.convertPositionToVoxel( (UTMCoord) currentAgent.getGoal() );
             List<PointInterface> neighborPositions = getPossibleNeighborPositions( map, currentAgent.getRadius(), goalPosition );
-            return getLegalNeighborStates( neighborPositions, currentAgent, map, goalPosition );
+            return getLegalNeighborStates( neighborPositions, currentAgent, map, goalPosition, metrics );
     }
 
     /**
@@ -104,6 +112,10 @@ public class ODStarState extends State{
      * @return list of all legal neighbor states
      */
     public List<State> getLegalNeighborStates(List<PointInterface> neighborPositions, Agent agent, Map map, PointInterface goalPosition){
+        return getLegalNeighborStates( neighborPositions, agent, map, goalPosition, null );
+    }
+
+    public List<State> getLegalNeighborStates(List<PointInterface> neighborPositions, Agent agent, Map map, PointInterface goalPosition, SearchMetrics metrics){
         List<State> legalNeighborStates = new ArrayList<>();
 
         // filter out all the illegal neighbor states
@@ -115,7 +127,13 @@ public class ODStarState extends State{
             // this line represents the move from one voxel to the next - is only used to check for conflicts
             PathLine line = new PathLine(positions.get(currentAgentId), neighborAgentPosition, agent);
 
-            if ( map.isMoveValid(line, goalPosition) && isLegalMove(line, agent) ) {
+            long start = metrics == null ? 0 : metrics.startTimer();
+            boolean validMove = map.isMoveValid(line, goalPosition);
+            if ( metrics != null ) {
+                metrics.addMoveValidationTime(start);
+            }
+
+            if ( validMove && isLegalMove(line, agent) ) {
                 //newState._waitMove = ((AgentPosition)neighbor).isWait();
                 ODStarState newState = createChildState( neighborAgentPosition, line );
                 legalNeighborStates.add(newState);
@@ -259,21 +277,17 @@ public class ODStarState extends State{
      */
     private List<PointInterface> getPossibleNeighborPositions(Map map, double agentRadius, PointInterface goal){
         List<PointInterface> possibleNeighbors = new ArrayList<PointInterface>();
-
-        for(int x = -1; x <= 1; x++) {
-            for(int y = -1; y <= 1; y++) {
-                for(int z = -1; z <= 1; z++) {
-
-                    AgentPosition newPosition = new AgentPosition(
-                            (int)(positions.get(currentAgentId)).getX() + x,
-                            (int)(positions.get(currentAgentId)).getY() + y,
-                            (int)(positions.get(currentAgentId)).getZ() + z,
-                            -1, -1, ((UTMCoord)positions.get(currentAgentId)).getZone(),
-                            ((UTMCoord)positions.get(currentAgentId)).getLatitudeBand());
-                    if(map.inMap(newPosition, goal, agentRadius)) {
-                        possibleNeighbors.add(newPosition);
-                    }
-                }
+        PointInterface current = positions.get(currentAgentId);
+        int x = (int)current.getX();
+        int y = (int)current.getY();
+        int z = (int)current.getZ();
+        int zone = ((UTMCoord)current).getZone();
+        char band = ((UTMCoord)current).getLatitudeBand();
+
+        for(Move move : Move.NEIGHBORHOOD) {
+            AgentPosition newPosition = new AgentPosition(x + move.getDx(), y + move.getDy(), z + move.getDz(), -1, -1, zone, band);
+            if(map.inMap(newPosition, goal, agentRadius)) {
+                possibleNeighbors.add(newPosition);
             }
         }
         return possibleNeighbors;
@@ -412,6 +426,8 @@ public class ODStarState extends State{
 
     public Agent getCurrentAgent(){ return agents.get(currentAgentId); }
 
+    public Agent getAgent(int agentId){ return agents.get(agentId); }
+
     public double getTimestep(){ return timestep; }
 
     public boolean isStandardState() { return standardState; }
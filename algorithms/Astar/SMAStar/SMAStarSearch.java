@@ -1,10 +1,13 @@
 package algorithms.Astar.SMAStar;
 
+import java.util.HashMap;
 import java.util.List;
 
 import agents.Agent;
 import algorithms.Astar.AStarSearch;
 import algorithms.heuristics.HeuristicInterface;
+import algorithms.openlists.MinMaxHeapOpenList;
+import algorithms.openlists.OpenList;
 import algorithms.trees.Node;
 import algorithms.trees.State;
 import map.Map;
@@ -16,11 +19,31 @@ public class SMAStarSearch extends AStarSearch {
 	
 	private int _nodesInMemory;
 	private final int _maxMemory = 10;
+	protected HashMap<Node, Node> _expanded;
 	
 	public SMAStarSearch(Map map, Agent agent, Node root, HeuristicInterface heuristic) {
 		super(map, agent, root, heuristic);
 	}
 	
+	@Override
+	public void reset(long timeLimit, long initialTime) {
+		super.reset(timeLimit, initialTime);
+		_expanded = new HashMap<Node, Node>();
+	}
+	
+	/**
+	 * SMA* keeps a map of the nodes, expandNode uses it to find the nodes that were expanded before
+	 */
+	@Override
+	public void recordGenerated(Node node) {
+		_expanded.put(node, node);
+	}
+	
+	@Override
+	public HashMap<Node, Node> getExpanded() {
+		return _expanded;
+	}
+	
 	@Override
 	public boolean checkForGoalState() {
 		if(isGoalNode(_bestNode)) {
@@ -98,6 +121,14 @@ public class SMAStarSearch extends AStarSearch {
 		}		
 	}
 	
+	/**
+	 * Needs a min-max heap to forget the worst node
+	 */
+	@Override
+	public OpenList<Node> createOpenList() {
+		return new MinMaxHeapOpenList<Node>(_openComparator);
+	}
+	
 	@Override
 	public void setInitialValues() {
 		super.setInitialValues();
@@ -105,7 +136,7 @@ public class SMAStarSearch extends AStarSearch {
 	}
 	
 	public void cutWorst() {
-		Node worst = (Node)_openList.pollLast();
+		Node worst = ((MinMaxHeapOpenList<Node>)_openList).pollLast();
 		Node parent = worst.getParent();
 		if(parent != null) {
 			((SMAStarState)parent.getState()).getForgottenTable().put((SMAStarState) worst.getState(), worst.getState().getFVal());
@@ -0,0 +1,50 @@
+package algorithms.Astar;
+
+import algorithms.collections.LongIntHashMap;
+import geometry.coords.PointInterface;
+import geometry.coords.UTMCoord;
+
+/**
+ * Packs the voxel of a position (coordinates truncated to integers) and its UTM zone in a single long:
+ * 6 bits of zone, 20 bits of x, 24 bits of y and 14 bits of z. Coordinates wrap around, so two voxels only share a key
+ * if they are 2^20 voxels apart in x, 2^24 in y or 2^14 in z, which cannot happen inside one search area.
+ * The latitude band is not part of the key.
+ */
+public final class VoxelKey {
+
+	private static final int Z_BITS = 14;
+	private static final int Y_BITS = 24;
+	private static final int X_BITS = 20;
+	private static final long Z_MASK = (1L << Z_BITS) - 1;
+	private static final long Y_MASK = (1L << Y_BITS) - 1;
+	private static final long X_MASK = (1L << X_BITS) - 1;
+	private static final long ZONE_MASK = (1L << 6) - 1;
+
+	private VoxelKey() {
+	}
+
+	public static long pack(int x, int y, int z, int zone) {
+		return ((zone & ZONE_MASK) << (X_BITS + Y_BITS + Z_BITS))
+				| ((x & X_MASK) << (Y_BITS + Z_BITS))
+				| ((y & Y_MASK) << Z_BITS)
+				| (z & Z_MASK);
+	}
+
+	/**
+	 * @return the key of the voxel containing the position, 0 for null
+	 */
+	public static long pack(PointInterface position) {
+		if(position == null) {
+			return 0;
+		}
+		int zone = position instanceof UTMCoord ? ((UTMCoord)position).getZone() : 0;
+		return pack((int)position.getX(), (int)position.getY(), (int)position.getZ(), zone);
+	}
+
+	/**
+	 * Spreads the bits of a key for hash tables
+	 */
+	public static int hash(long key) {
+		return LongIntHashMap.mix(key);
+	}
+}
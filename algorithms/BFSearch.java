@@ -1,20 +1,18 @@
 package algorithms;
 
 import java.util.*;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import agents.Agent;
-import algorithms.Astar.ODStar.ODStarSearch;
 import algorithms.Astar.ODStar.ODStarState;
-import algorithms.CBS.GreedyCBS.GreedyCBSState;
-import algorithms.comparators.AgentConflictComparator;
-import algorithms.comparators.ConflictCountComparator;
-import algorithms.comparators.PairCountComparator;
-import com.google.common.collect.MinMaxPriorityQueue;
+import algorithms.events.SearchEvent;
 import algorithms.heuristics.HeuristicInterface;
-import dataStructures.ThreePriorityQueue;
+import algorithms.metrics.SearchMetrics;
+import algorithms.openlists.FocalOpenList;
+import algorithms.openlists.MinMaxHeapOpenList;
+import algorithms.openlists.OpenList;
 import utils.Debug;
 import utils.DebugEnums;
 import utils.TestUtils;
@@ -22,6 +20,7 @@ import algorithms.trees.Node;
 import algorithms.trees.State;
 import exceptions.SolutionNotFoundException;
 import map.Map;
+import utils.GeneralUtils;
 import utils.Utils;
 
 public abstract class BFSearch extends Search{
@@ -33,17 +32,22 @@ public abstract class BFSearch extends Search{
 	protected Node _root;	
 	protected Node _bestNode;
 	protected State _goal;
-	protected MinMaxPriorityQueue<Node> _openList;
-	protected PriorityQueue<Node> openList;
-	protected PriorityQueue<Node> _focalList = new PriorityQueue<Node>(); //for focal searches
+	protected OpenList<Node> _openList;
+	protected FocalOpenList _focalList; //for focal searches, same object as the open list
+	protected Comparator<Node> _focalComparator = Comparator.naturalOrder(); //for focal searches
 	protected HashSet<Node> _closedList;
 	protected HeuristicInterface _heuristic;
 	protected HeuristicInterface _secondHeuristic;
 	protected Comparator<Node> _openComparator;
-	protected ThreePriorityQueue<Node> greedyCBSOpenList;
+	protected SearchMetrics _metrics;
 
 	//Force a search thread to shut down after a timeout 
 	private volatile boolean _shutdown = false;
+	//Deadline for searches running on the caller's thread
+	private boolean _inline = false;
+	private boolean _deadlineReached = false;
+	private long _deadline = Long.MAX_VALUE;
+	private int _deadlineCounter = 0;
 	
 	//No need to implement a default BFS algorithm
 	public BFSearch(Map map, Node root, HeuristicInterface heuristic, Comparator<Node> openComparator) {
@@ -51,6 +55,7 @@ public abstract class BFSearch extends Search{
 		_root = root;
 		_heuristic = heuristic;
 		_openComparator = openComparator;
+		_metrics = new SearchMetrics(getAlgorithmName());
 		setBestNode(null);
 	}
 
@@ -71,6 +76,25 @@ public abstract class BFSearch extends Search{
 	 */
 	@Override
 	public boolean findPath(long timeLimit, long initialTime){
+		SearchEvent event = new SearchEvent();
+		event.begin();
+		long start = System.nanoTime();
+		boolean timeout = findPathWithTimeout(timeLimit, initialTime);
+		_duration = (System.nanoTime() - start) / 1e6;
+		_metrics.finish(_duration, timeout);
+		SearchMetrics.publish(_metrics);
+		if(event.shouldCommit()) {
+			event.algorithm = getAlgorithmName();
+			event.timeLimit = timeLimit;
+			event.timedOut = timeout;
+			event.expanded = _metrics.getExpansions();
+			event.generated = _metrics.getGenerations();
+			event.commit();
+		}
+		return timeout;
+	}
+	
+	private boolean findPathWithTimeout(long timeLimit, long initialTime){
 		//this should never happen
 		if(timeLimit < 0) {
 			_noSolution = true;
@@ -80,36 +104,30 @@ public abstract class BFSearch extends Search{
 			return true;
 			
 		}
-		final ExecutorService service = Executors.newSingleThreadExecutor();
-		service.submit(() -> {
+		if(SearchExecutor.isInline()) {
+			return findPathInline(timeLimit, initialTime);
+		}
+		_inline = false;
+		final CountDownLatch searchFinished = new CountDownLatch(1);
+		Future<?> task = SearchExecutor.submit(() -> {
 			try {
-				// set all variables
-				reset(timeLimit, initialTime);
-				// create start and goal states
-				createGoalState();
-				createStartState();
-				setInitialValues();
-
-				search();
+				runSearch(timeLimit, initialTime);
 			}
-			catch(Exception e) {
-				TestUtils.printExceptionMessage(e.getMessage(), "");
-				_noSolution = true;
+			finally {
+				searchFinished.countDown();
 			}
-
 		});
 		
 		try {
-			service.shutdown();
 			// wait for thread to finish
-			boolean finished = service.awaitTermination(timeLimit, TimeUnit.MILLISECONDS);
+			boolean finished = searchFinished.await(timeLimit, TimeUnit.MILLISECONDS);
 			if (!finished) {
 				// force thread to finish
 				_shutdown = true;
-				service.shutdownNow();
+				task.cancel(true);
 				
 				// thread should finish immediately this time
-				finished = service.awaitTermination(timeLimit, TimeUnit.MILLISECONDS);
+				finished = searchFinished.await(timeLimit, TimeUnit.MILLISECONDS);
 				if (!finished) {
 					Debug.print(DebugEnums.ERROR, "Thread for findPath did not finish after being forced to finish, we waited " + timeLimit);					
 				} else {
@@ -131,38 +149,95 @@ public abstract class BFSearch extends Search{
 			updateNoSolution();
 			return true;
 		}
-		finally {
-            service.shutdown();
-        }
 		return false;
 	}
 	
-	public void search() throws SolutionNotFoundException {
-
-		// A*+OD
-		if ( _root.getState() instanceof ODStarState ){
-			while ( !openList.isEmpty() ) {
-				if ( getBestNodeAndExpand() || _shutdown || Thread.interrupted() ) {
-					return;
-				}
-			}
+	/**
+	 * Runs the search on the caller's thread, without any thread handoff. Instead of waiting for a thread with a timeout,
+	 * the search loops check the deadline every getDeadlineCheckInterval() expansions.
+	 * @param timeLimit
+	 * @return true if there was a timeout
+	 */
+	public boolean findPathInline(long timeLimit, long initialTime) {
+		_inline = true;
+		_deadlineReached = false;
+		_deadlineCounter = 0;
+		_deadline = GeneralUtils.getCurrentTimeInMilliseconds() + timeLimit;
+		runSearch(timeLimit, initialTime);
+		if(_deadlineReached) {
+			Debug.print(DebugEnums.DEBUG, getAlgorithmName() + ": deadline reached after " + timeLimit);
+			//return best state for CBS based searches
+			getBestNode().setTimeout(true);
+			updateNoSolution();
+			return true;
 		}
+		return false;
+	}
+	
+	private void runSearch(long timeLimit, long initialTime) {
+		try {
+			// set all variables
+			reset(timeLimit, initialTime);
+			// create start and goal states
+			createGoalState();
+			createStartState();
+			setInitialValues();
 
-		// greedy CBS
-		else if ( _root.getState() instanceof GreedyCBSState){
-			while ( !greedyCBSOpenList.isEmpty() ) {
-				if ( getBestNodeAndExpand() || _shutdown || Thread.interrupted() ) {
-					return;
-				}
+			search();
+		}
+		catch(Exception e) {
+			TestUtils.printExceptionMessage(e.getMessage(), "");
+			_noSolution = true;
+		}
+		finally {
+			releaseResources();
+		}
+	}
+	
+	/**
+	 * Called on the search thread when the search is over, for searches that borrow pooled structures
+	 */
+	public void releaseResources() {
+		//
+	}
+	
+	/**
+	 * @return true if the search must stop: it was forced to shut down, its thread was interrupted or, for inline searches,
+	 * the deadline has passed. The clock is only read every getDeadlineCheckInterval() calls.
+	 */
+	public boolean isSearchStopped() {
+		if(_shutdown) {
+			return true;
+		}
+		if(!_inline) {
+			return Thread.interrupted();
+		}
+		// do not clear the flag, it belongs to the caller's thread
+		if(Thread.currentThread().isInterrupted()) {
+			_deadlineReached = true;
+			return true;
+		}
+		if(++_deadlineCounter >= getDeadlineCheckInterval()) {
+			_deadlineCounter = 0;
+			if(GeneralUtils.getCurrentTimeInMilliseconds() >= _deadline) {
+				_deadlineReached = true;
+				return true;
 			}
 		}
-
-		// everything else
-		else {
-			while ( !_openList.isEmpty() ) {
-				if ( getBestNodeAndExpand() || _shutdown || Thread.interrupted() ) {
-					return;
-				}
+		return false;
+	}
+	
+	/**
+	 * Searches with expensive expansions (e.g. CBS) should check the deadline more often
+	 */
+	public int getDeadlineCheckInterval() {
+		return SearchExecutor.getDeadlineCheckInterval();
+	}
+	
+	public void search() throws SolutionNotFoundException {
+		while ( !_openList.isEmpty() ) {
+			if ( getBestNodeAndExpand() || isSearchStopped() ) {
+				return;
 			}
 		}
 
@@ -173,10 +248,17 @@ public abstract class BFSearch extends Search{
 	// true if a solution is found
 	public boolean getBestNodeAndExpand() throws SolutionNotFoundException{
 		_bestNode = getNextBestNode();
+		if(_bestNode == null) {
+			//every node left was discarded when popped (lazy move validation)
+			return false;
+		}
 		_numGenerated++;
 		
 		//check if reached the goal. If so, the search is finished
-		if(checkForGoalState()) {
+		long start = _metrics.startTimer();
+		boolean goalReached = checkForGoalState();
+		_metrics.addGoalCheckTime(start);
+		if(goalReached) {
 			/*
 			if ( _bestNode.getState() instanceof  ODStarState){
 				// TODO: this method takes longer than the algorithm itself
@@ -186,19 +268,17 @@ public abstract class BFSearch extends Search{
 		}
 		exploredNode();
 		//expand the node
+		start = _metrics.startTimer();
 		expandNode();
+		_metrics.addExpandTime(start);
+		_numExpanded++;
+		_metrics.nodeExpanded();
 		
 		return false;
 	}
 	
 	public Node getNextBestNode() {
-		if ( _root.getState() instanceof ODStarState ){
-			return openList.poll();
-		} else if (_root.getState() instanceof GreedyCBSState ) {
-			return greedyCBSOpenList.poll();
-		} else {
-			return _openList.poll();
-		}
+		return _openList.poll();
 	}
 	
 	/**
@@ -212,10 +292,18 @@ public abstract class BFSearch extends Search{
 			return;
 		} else {
 			//close the node
-			_closedList.add( getBestNode() );
+			closeNode( getBestNode() );
 		}
 	}
 	
+	/**
+	 * Adds the node to the closed list. Searches with their own closed set override it
+	 */
+	public void closeNode(Node node) {
+		_closedList.add(node);
+		_metrics.nodeClosed(_closedList.size());
+	}
+	
 	public boolean checkForGoalState() throws SolutionNotFoundException {
 		if(isGoalNode(_bestNode)) {
 			returnFromGoalState();
@@ -230,12 +318,13 @@ public abstract class BFSearch extends Search{
 	 * share a super class, besides this one, have this code in common.
 	 * @param weight
 	 * Currently hardcoded to remove the node from focal list with the least number of conflicts.
+	 * The open list must be a FocalOpenList: the nodes entering the focal list are found with a range query on the lower bound.
 	 */
 	public void searchFocal(double weight) throws SolutionNotFoundException{
-		_focalList.add(_root);
+		_focalList.addToFocal(_root);
 		_lowerBound = _root.getState().getLowerBound();
-		while (!_focalList.isEmpty()) {
-			if(getBestNodeAndExpand() || _shutdown || Thread.interrupted()) {
+		while (!_focalList.isFocalEmpty()) {
+			if(getBestNodeAndExpand() || isSearchStopped()) {
 				return;
 			}	
 			//update focal list and lower bound
@@ -244,16 +333,9 @@ public abstract class BFSearch extends Search{
 				double openHead = stateAux.getLowerBound();
 				//update focal list every time fMin increases as a lower bound
 				if(openHead > _lowerBound) {
-					for(Node node : _openList) {
-						State state = node.getState();
-						// if the new LB of the state is not in the focal list yet but is now less than the new lowest
-						// cost * weight, add it to focal list.
-						if(state.getLowerBound() <= weight * openHead && state.getLowerBound() > weight * _lowerBound) {
-							// necessary to attempt remove first because Java priority queue allows duplicates
-							_focalList.remove(node);
-							_focalList.add(node);
-						}
-					}
+					// the lower bound never decreases, so nodes in (weight * old bound, weight * new bound] were not added
+					// to the focal list when generated nor in a previous update
+					_focalList.addToFocal(weight * _lowerBound, weight * openHead);
 					_lowerBound = openHead;
 				}
 			}
@@ -263,27 +345,38 @@ public abstract class BFSearch extends Search{
 	}
 
 	public void reset(long timeLimit, long initialTime) {
-		_openList = MinMaxPriorityQueue.orderedBy(_openComparator).create();
-		//openList = new PriorityQueue<>( Collections.reverseOrder(_openComparator) ); // prioirty queue for OD star search
-		openList = new PriorityQueue<>( _openComparator );
-		greedyCBSOpenList = new ThreePriorityQueue<>(new AgentConflictComparator(), new ConflictCountComparator(), new PairCountComparator() );
+		_openList = createOpenList();
+		//focal searches keep both lists in the same container
+		_focalList = _openList instanceof FocalOpenList ? (FocalOpenList)_openList : null;
 		_closedList = new HashSet<Node>();
 		_numExpanded = 0;
 		_numGenerated = 0;
 		_duration = 0;		
+		_metrics = new SearchMetrics(getAlgorithmName());
 		_timeLimit = timeLimit;
 		_initialTime = initialTime;
 	}
 	
+	/**
+	 * Called on every reset. Searches that need a different ordering structure (e.g. pollLast, several keys) override it.
+	 */
+	public OpenList<Node> createOpenList() {
+		return new MinMaxHeapOpenList<Node>(_openComparator);
+	}
+	
 	public void setInitialValues() {
 		// add root node with start state to the open list
-		if ( _root.getState() instanceof ODStarState ) {
-			openList.add( _root );
-		} else {
-			_openList.add( _root );
-		}
+		addToOpenList( _root );
 		_numGenerated++;
 	}
+	
+	/**
+	 * Adds a generated node to the open list and counts it in the metrics
+	 */
+	public void addToOpenList(Node node) {
+		_openList.add(node);
+		_metrics.nodeGenerated(_openList.size());
+	}
 
 	@SuppressWarnings( "Duplicates" )
 	public void smoothPaths(Map map, State state) {
@@ -319,7 +412,7 @@ public abstract class BFSearch extends Search{
 		return _openComparator;
 	}
 
-	public MinMaxPriorityQueue<Node> getOpenList() {
+	public OpenList<Node> getOpenList() {
 		return _openList;
 	}
 
@@ -339,9 +432,16 @@ public abstract class BFSearch extends Search{
 		return _map;
 	}
 
+	/**
+	 * @return milliseconds spent in the last findPath
+	 */
 	public double getDuration() {
 		return _duration;
 	}
+	
+	public SearchMetrics getMetrics() {
+		return _metrics;
+	}
 
 	public Node getRoot() {
 		return _root;
@@ -15,7 +15,12 @@ import algorithms.comparators.ConflictComparator;
 import algorithms.comparators.HValueComparator;
 import algorithms.conflicts.AgentConflict;
 import algorithms.conflicts.AlgorithmConflict;
+import algorithms.events.ConstraintTreeExpansionEvent;
+import algorithms.heuristics.DistanceTableCache;
 import algorithms.heuristics.HeuristicInterface;
+import algorithms.heuristics.NumberOfConflictsHeuristic;
+import algorithms.openlists.BucketOpenList;
+import algorithms.openlists.OpenList;
 import algorithms.trees.Node;
 import algorithms.trees.State;
 import exceptions.SolutionNotFoundException;
@@ -30,6 +35,8 @@ public class CBSSearch extends BFSearch {
 	protected List<Agent> _agents;
 	protected AlgorithmName _singleSearch;
 	protected ConflictComparator _conflictComparator;
+	protected boolean _staticDistanceTables = false; //low level searches use exact static distances as heuristic
+	protected DistanceTableCache _distanceTables; //tables of this search, or of the run it belongs to (e.g. ID)
 	
 	public CBSSearch(Map map, List<Agent> agents, Node root, HeuristicInterface heuristic, AlgorithmName singleSearch) {
 		super(map, root, heuristic, new HValueComparator());
@@ -46,6 +53,26 @@ public class CBSSearch extends BFSearch {
 		_initialCost = 0;
 		_finalCost = 0;
 		_conflictCounter = 0;
+		_distanceTables = _root.getDistanceTables();
+		if(_distanceTables == null && _staticDistanceTables) {
+			_distanceTables = new DistanceTableCache(_map);
+		}
+	}
+	
+	@Override
+	public void releaseResources() {
+		_distanceTables = null;
+	}
+	
+	/**
+	 * The number of conflicts is a small integer, so it can index a bucket queue directly
+	 */
+	@Override
+	public OpenList<Node> createOpenList() {
+		if(_heuristic instanceof NumberOfConflictsHeuristic) {
+			return new BucketOpenList<Node>(node -> (int)node.getState().getHVal());
+		}
+		return super.createOpenList();
 	}
 	
 	@Override
@@ -55,6 +82,8 @@ public class CBSSearch extends BFSearch {
 		//get the initial paths of the agents and total cost of the initial state
 		PriorityQueue<AgentConflict> conflictsStart = new PriorityQueue<AgentConflict>(_conflictComparator);
 		State startState = getNewState(_initialCost, agentObstacles, conflictsStart);
+		((CBSState)startState).setDistanceTables(_distanceTables);
+		((CBSState)startState).setSearchContext(_map, _timeLimit, _initialTime);
 		((CBSState)startState).setAllSingleAgentPaths(getInitialPaths(startState));
 		((CBSState)startState).findAllConflicts();
 		_root.setState(startState);
@@ -89,11 +118,21 @@ public class CBSSearch extends BFSearch {
 	
 	@Override
 	public void expandNode() {
+		ConstraintTreeExpansionEvent event = new ConstraintTreeExpansionEvent();
+		event.begin();
 		//expand and create children nodes base
-		List<State> newStates = ((CBSState)_bestNode.getState()).expand(_map, _timeLimit, _initialTime);
+		CBSState state = (CBSState)_bestNode.getState();
+		List<State> newStates = state.expand(_map, _timeLimit, _initialTime);
 		for(State newState : newStates) {
 			addChildNode(_bestNode, (CBSState)newState);
 		}	
+		if(event.shouldCommit()) {
+			event.algorithm = getAlgorithmName();
+			event.conflicts = state.getNumberOfConflicts();
+			event.children = newStates.size();
+			event.lowLevelTime = state.getLowLevelTime();
+			event.commit();
+		}
 	}
 
 	@Override
@@ -140,8 +179,16 @@ public class CBSSearch extends BFSearch {
 		//
 	}
 	
+	/**
+	 * Every expansion runs two low level searches, so the deadline is checked after each one
+	 */
+	@Override
+	public int getDeadlineCheckInterval() {
+		return 1;
+	}
+	
 	public void addChildNode(Node parent, CBSState state) {
-		_openList.add(new Node(parent, state));
+		addToOpenList(new Node(parent, state));
 	}
 
 	/***********************************************************/
@@ -159,4 +206,15 @@ public class CBSSearch extends BFSearch {
 	public List<Agent> getAgents() {
 		return _agents;
 	}
+	public boolean isStaticDistanceTables() {
+		return _staticDistanceTables;
+	}
+	/**
+	 * @param staticDistanceTables true to build one static distance table per goal for the whole search, used as heuristic
+	 * by the low level A* searches (see DistanceTableCache). A search started by a run that has tables (e.g. ID) uses
+	 * the tables of the run
+	 */
+	public void setStaticDistanceTables(boolean staticDistanceTables) {
+		_staticDistanceTables = staticDistanceTables;
+	}
 }
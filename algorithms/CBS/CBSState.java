@@ -13,6 +13,8 @@ import agents.path.PathLine;
 import algorithms.AlgorithmName;
 import algorithms.conflicts.AgentConflict;
 import algorithms.conflicts.AlgorithmConflict;
+import algorithms.heuristics.ConflictGraph;
+import algorithms.heuristics.DistanceTableCache;
 import algorithms.heuristics.HeuristicInterface;
 import algorithms.trees.Node;
 import algorithms.trees.State;
@@ -37,6 +39,12 @@ public class CBSState extends State{
 	protected PriorityQueue<AgentConflict> _conflicts;
 	protected HashMap<Integer, HashSet<PathLine>> _agentObstacles;
 	protected AlgorithmName _singleSearch;
+	protected long _lowLevelTime; //nanoseconds spent in the low level searches of the last expansion
+	protected ConflictGraph _conflictGraph; //pairs in conflict with their cost bounds, only for ConflictGraphHeuristic
+	protected DistanceTableCache _distanceTables; //static distance tables of the search for the low level searches, null if none
+	protected Map _staticMap; //map of the search, without the agent obstacles of the state
+	protected long _timeLimit;
+	protected long _initialTime;
 
 	public CBSState(double gVal, double hVal, double fVal, float totalCost, HashMap<Integer, HashSet<PathLine>> agentObstacles,
 					AlgorithmName singleSearch, PriorityQueue<AgentConflict> conflicts, Agent agent, HeuristicInterface heuristic) {
@@ -52,6 +60,7 @@ public class CBSState extends State{
 	
 	public List<State> expand(Map map, long timeLimit, long initialTime) {
 		List<State> children = new ArrayList<State>();
+		_lowLevelTime = 0;
 		//create both possible states
 		for(int i = 1; i <= 2; i++) {
 			long timelimit = timeLimit - (GeneralUtils.getCurrentTimeInMilliseconds() - initialTime);
@@ -72,6 +81,11 @@ public class CBSState extends State{
 		state._allSingleAgentPaths = _allSingleAgentPaths;
 		state._totalCost = _totalCost;
 		state._earliestConflict = _earliestConflict;
+		state._conflictGraph = _conflictGraph;
+		state._distanceTables = _distanceTables;
+		state._staticMap = _staticMap;
+		state._timeLimit = _timeLimit;
+		state._initialTime = _initialTime;
 		return state;
 	}
 	
@@ -199,16 +213,25 @@ public class CBSState extends State{
 		PriorityQueue<AgentConflict> conflicts = cloneConflicts();
 		removeAgentConflicts(conflicts, agent.getId());
 		CBSState state = getNewState(agentObstacles, conflicts, agent);		
+		state._conflictGraph = _conflictGraph == null ? null : _conflictGraph.withoutAgent(agent.getId());
+		state._distanceTables = _distanceTables;
+		state._staticMap = _staticMap;
+		state._timeLimit = _timeLimit;
+		state._initialTime = _initialTime;
 		//find and update path for this agent 
 		Node root = AlgorithmUtils.getRootNode(_singleSearch);
+		root.setDistanceTables(_distanceTables);
 		List<Agent> agents = new ArrayList<Agent>();
 		agents.add(agent);
 		long timeLimit = timelimit - (GeneralUtils.getCurrentTimeInMilliseconds() - initialTime);
+		long start = System.nanoTime();
 		try {
 			runAlgorithm(map, agents, root, timeLimit, initialTime);
 		} catch (SolutionNotFoundException | TimeoutException e) {
 			return null;
-		} 
+		} finally {
+			_lowLevelTime += System.nanoTime() - start;
+		}
 		//update path
 		state.getAllSingleAgentPaths().get(AgentUtils.getPathIndexFromAgentId(_allSingleAgentPaths, agent.getId())).setWaypoints(agent.getPath().getWaypoints(), true);
 		//find conflicts
@@ -223,6 +246,33 @@ public class CBSState extends State{
 		AlgorithmUtils.runAlgorithm(map, agents, root, _singleSearch, _singleSearch, timelimit, initialTime, 0, null);
 	}
 	
+	/**
+	 * Plans the agent like a child of this state would, with the agent obstacles of the state plus the given ones,
+	 * without creating the child. Needs the search context (see setSearchContext)
+	 * @return the new path, null if the agent has no path with the obstacles
+	 * @throws TimeoutException if the time limit of the search is reached
+	 */
+	public Path replan(Agent agent, HashMap<Integer, HashSet<PathLine>> agentObstacles) throws TimeoutException {
+		long timeLimit = _timeLimit - (GeneralUtils.getCurrentTimeInMilliseconds() - _initialTime);
+		if(_staticMap == null || timeLimit <= 0) {
+			throw new TimeoutException("CBS: no time left to replan agent " + agent.getId());
+		}
+		Map map = _staticMap.clone();
+		map.addAgentObstacles(_agentObstacles);
+		map.addAgentObstacles(agentObstacles);
+		Node root = AlgorithmUtils.getRootNode(_singleSearch);
+		root.setDistanceTables(_distanceTables);
+		Agent clone = agent.clone();
+		List<Agent> agents = new ArrayList<Agent>();
+		agents.add(clone);
+		try {
+			runAlgorithm(map, agents, root, timeLimit, _initialTime);
+		} catch (SolutionNotFoundException e) {
+			return null;
+		}
+		return clone.getPath();
+	}
+	
 	public void otherUpdateds() {
 		//to use as an abstract method
 	}
@@ -292,4 +342,44 @@ public class CBSState extends State{
 		return _conflicts;
 	}
 
+	/**
+	 * @return pairs in conflict with their cost bounds, started from the graph of the parent. Null if the heuristic does
+	 * not use it
+	 */
+	public ConflictGraph getConflictGraph() {
+		return _conflictGraph;
+	}
+
+	public void setConflictGraph(ConflictGraph conflictGraph) {
+		_conflictGraph = conflictGraph;
+	}
+
+	/**
+	 * @param map map of the search, without agent obstacles
+	 * @param timeLimit and initialTime of the search, bound the low level searches of replan. Passed to the children
+	 */
+	public void setSearchContext(Map map, long timeLimit, long initialTime) {
+		_staticMap = map;
+		_timeLimit = timeLimit;
+		_initialTime = initialTime;
+	}
+
+	public DistanceTableCache getDistanceTables() {
+		return _distanceTables;
+	}
+
+	/**
+	 * @param distanceTables static distance tables handed to the low level searches of this state and its children
+	 */
+	public void setDistanceTables(DistanceTableCache distanceTables) {
+		_distanceTables = distanceTables;
+	}
+
+	/**
+	 * @return nanoseconds spent in the low level searches of the last call to expand
+	 */
+	public long getLowLevelTime() {
+		return _lowLevelTime;
+	}
+
 }
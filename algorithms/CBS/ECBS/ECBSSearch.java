@@ -16,6 +16,8 @@ import algorithms.comparators.FValueComparator;
 import algorithms.comparators.HValueComparator;
 import algorithms.conflicts.AgentConflict;
 import algorithms.heuristics.HeuristicInterface;
+import algorithms.openlists.FocalOpenList;
+import algorithms.openlists.OpenList;
 import algorithms.trees.Node;
 import algorithms.trees.State;
 import exceptions.SolutionNotFoundException;
@@ -26,7 +28,7 @@ public class ECBSSearch extends CBSSearch {
 
 	public ECBSSearch(Map map, List<Agent> agents, Node root, HeuristicInterface heuristic, AlgorithmName singleSearch, double weight) {
 		super(map, agents, root, heuristic, singleSearch);
-		_focalList = new PriorityQueue<Node>(new HValueComparator());
+		_focalComparator = new HValueComparator();
 		_openComparator = new FValueComparator();
 		_weight = weight;
 	}
@@ -37,6 +39,14 @@ public class ECBSSearch extends CBSSearch {
 		return newState;
 	}
 	
+	/**
+	 * The open list is ordered by the lower bound, the focal list by the number of conflicts
+	 */
+	@Override
+	public OpenList<Node> createOpenList() {
+		return new FocalOpenList(_focalComparator);
+	}
+	
 	@Override
 	public ArrayList<Path> getInitialPaths(State start) {
 		ArrayList<Path> allSingleAgentPaths = new ArrayList<Path>();
@@ -57,17 +67,15 @@ public class ECBSSearch extends CBSSearch {
 	
 	@Override
 	public Node getNextBestNode() {
-		Node bestNode = _focalList.poll();
-		_openList.remove(bestNode);
-		return bestNode;
+		return _focalList.pollFocal();
 	}
 	
 	@Override
 	public void addChildNode(Node parent, CBSState state) {
 		Node childNode = new Node(parent, state);
-		_openList.add(childNode);
+		addToOpenList(childNode);
 		if(((ECBSState)childNode.getState()).getLowerBound() <= _weight * _lowerBound) {
-			_focalList.add(childNode);
+			_focalList.addToFocal(childNode);
 		}
 	}
 	
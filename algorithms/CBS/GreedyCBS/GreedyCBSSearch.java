@@ -5,8 +5,13 @@ import agents.path.PathLine;
 import algorithms.AlgorithmName;
 import algorithms.CBS.CBSSearch;
 import algorithms.CBS.CBSState;
+import algorithms.comparators.AgentConflictComparator;
+import algorithms.comparators.ConflictCountComparator;
+import algorithms.comparators.PairCountComparator;
 import algorithms.conflicts.AgentConflict;
 import algorithms.heuristics.HeuristicInterface;
+import algorithms.openlists.MultiKeyOpenList;
+import algorithms.openlists.OpenList;
 import algorithms.trees.Node;
 import algorithms.trees.State;
 import map.Map;
@@ -22,6 +27,14 @@ public class GreedyCBSSearch extends CBSSearch {
         super(map, agents, root, heuristic, singleSearch);
     }
 
+    /**
+     * Nodes are ordered by agents in conflict, then number of conflicts, then number of conflicting pairs
+     */
+    @Override
+    public OpenList<Node> createOpenList() {
+        return new MultiKeyOpenList<>( new AgentConflictComparator(), new ConflictCountComparator(), new PairCountComparator() );
+    }
+
     @Override
     public State getNewState( float cost, HashMap<Integer, HashSet<PathLine>> agentObstacles, PriorityQueue<AgentConflict> conflictsStart) {
         HashMap<Agent, HashSet<Agent>> pairConflicts = new HashMap<>();
@@ -2,17 +2,19 @@ package algorithms.CooperativeAStar;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import agents.Agent;
 import agents.path.Path;
 import algorithms.AlgorithmName;
 import algorithms.Search;
+import algorithms.SearchExecutor;
 import algorithms.conflicts.AgentConflict;
 import algorithms.conflicts.AlgorithmConflict;
 import algorithms.conflicts.ConflictType;
+import algorithms.events.AgentReplanEvent;
 import algorithms.trees.Node;
 import exceptions.SolutionNotFoundException;
 import exceptions.TimeoutException;
@@ -21,6 +23,7 @@ import map.Map;
 import utils.AlgorithmUtils;
 import utils.Debug;
 import utils.DebugEnums;
+import utils.GeneralUtils;
 import utils.OperationUtils;
 import utils.TestUtils;
 import utils.Utils;
@@ -55,51 +58,82 @@ public class CooperativeAStarSearch extends Search{
 	
 	@Override
 	public boolean findPath(long timeLimit, long initialTime){
-		final ExecutorService service = Executors.newSingleThreadExecutor();
+		if(SearchExecutor.isInline()) {
+			// each single agent search gets what is left of the time limit, the loop stops when nothing is left
+			try {
+				return search(timeLimit);
+			}
+			catch(Exception e) {
+				TestUtils.printExceptionMessage(e.getMessage(), "");
+				_noSolution = true;
+			}
+			return false;
+		}
+		Future<?> task = SearchExecutor.submit(() -> {
+			try {
+				search(timeLimit);
+			}
+			catch(Exception e) {
+				TestUtils.printExceptionMessage(e.getMessage(), "");
+				_noSolution = true;
+			}	
+		});
 		try {
-			service.submit(() -> {
-				try {
-					search(timeLimit);
-				}
-				catch(Exception e) {
-					TestUtils.printExceptionMessage(e.getMessage(), "");
-					_noSolution = true;
-				}	
-				service.shutdownNow();
-			});  
-			service.awaitTermination(timeLimit, TimeUnit.MILLISECONDS);
+			task.get(timeLimit, TimeUnit.MILLISECONDS);
 		}
 		catch (InterruptedException e) {
 			Debug.print(DebugEnums.ERROR, "TIMEOUT " + e.getMessage());
 			return true;
 		}
-		finally {
-            service.shutdown();
-        }
+		catch (java.util.concurrent.TimeoutException | ExecutionException e) {
+			// the search is not interrupted, agents keep the paths that were already found
+			Debug.print(DebugEnums.DEBUG, "Cooperative A*: search did not finish in " + timeLimit);
+		}
 		return false;
 	}
 	
-	public void search(long timeLimit) {
+	/**
+	 * @param timeLimit for all the agents, each single agent search gets the time left
+	 * @return true if the time limit was reached before every agent was processed
+	 */
+	public boolean search(long timeLimit) {
+		long start = GeneralUtils.getCurrentTimeInMilliseconds();
 		for(Agent agent : _agents) {
 			//check if the agent has conflicts
 			if(conflictFound(agent.getId())) {
+				long remaining = timeLimit - (GeneralUtils.getCurrentTimeInMilliseconds() - start);
+				if(remaining <= 0) {
+					Debug.print(DebugEnums.DEBUG, "Cooperative A*: time limit reached before all agents were processed");
+					return true;
+				}
 				//if so,
 				//create root node
 				Node root = AlgorithmUtils.getRootNode(_singleSearch);
 				List<Agent> agents = new ArrayList<Agent>();
 				agents.add(agent);
+				AgentReplanEvent event = new AgentReplanEvent();
+				event.begin();
+				boolean solved = false;
 				try {
 					//find new path
-					AlgorithmUtils.runAlgorithm(_map, agents, root, _singleSearch, _singleSearch, timeLimit, _initialTime, 0, null);
+					AlgorithmUtils.runAlgorithm(_map, agents, root, _singleSearch, _singleSearch, remaining, _initialTime, 0, null);
 					agent.getPath().setFreeOfConflicts(true);
+					solved = true;
 				} catch (SolutionNotFoundException e) {
 					//inform that one of the agents does not have a solution but continue the search
 					Debug.print(DebugEnums.DEBUG, "Cooperative A*: One of the agents could not find a path");
 					agent.getPath().setFreeOfConflicts(false);
 					continue;
 				} catch (TimeoutException e) {
-					// Not expecting timeouts here
-					e.printStackTrace();
+					// the agent used what was left of the time limit
+					Debug.print(DebugEnums.DEBUG, "Cooperative A*: time limit reached before all agents were processed");
+					return true;
+				} finally {
+					if(event.shouldCommit()) {
+						event.agentId = agent.getId();
+						event.solved = solved;
+						event.commit();
+					}
 				}
 			}
 			
@@ -107,6 +141,7 @@ public class CooperativeAStarSearch extends Search{
 			OperationUtils.addAgentObstacleFromPart(_map.getAgentObstacles(), agent.getPath());
 			_acceptedPaths.add(agent.getPath());
 		}
+		return false;
 	}
 	
 	public boolean conflictFound(int agentId) {
@@ -3,6 +3,8 @@ package algorithms.IndependenceDetecetion;
 import agents.Agent;
 import algorithms.conflicts.AgentConflict;
 import algorithms.conflicts.AlgorithmConflict;
+import algorithms.events.GroupMergeEvent;
+import algorithms.events.ReplanEvent;
 import dataStructures.DisjointSetMap;
 import map.Map;
 
@@ -48,7 +50,7 @@ public class IndependenceDetection {
             }
             else if (conflict.getOperation2() == null) {
                 groupI = agentGroups.find( conflict.getAgent1().getId() );
-                pathFindingDriver.execute( true, groupI, -1 );
+                replan( true, groupI, -1 );
                 pathFindingDriver.updateConflicts( groupI );
                 pathFindingDriver.findConflicts( groupI, false );
             }
@@ -59,15 +61,15 @@ public class IndependenceDetection {
 
                     // solve conflicts and find new paths
                     if ( groupI.equals( groupJ ) ) {
-                        pathFindingDriver.execute( true, groupI, -1 );
-                    } else if ( pathFindingDriver.execute( false, groupI, groupJ ) ) {
-                        agentGroups.union( groupI, groupJ );
-                    } else if ( pathFindingDriver.execute( false, groupJ, groupI ) ) {
-                        agentGroups.union( groupI, groupJ );
+                        replan( true, groupI, -1 );
+                    } else if ( replan( false, groupI, groupJ ) ) {
+                        merge( groupI, groupJ );
+                    } else if ( replan( false, groupJ, groupI ) ) {
+                        merge( groupI, groupJ );
                     } else {
-                        agentGroups.union( groupI, groupJ );
+                        merge( groupI, groupJ );
                         groupJ = agentGroups.find(groupJ);
-                        pathFindingDriver.execute( true, groupJ, -1 );
+                        replan( true, groupJ, -1 );
                     }
 
                     // remove previous conflicts with rerouted agents and find new conflicts (groupI and groupJ are now same group)
@@ -81,6 +83,33 @@ public class IndependenceDetection {
             }
         }
     }
+
+    /**
+     * Runs the path finding command and records it as a flight recorder event
+     */
+    private boolean replan(boolean updatePaths, Integer group1, Integer group2){
+        ReplanEvent event = new ReplanEvent();
+        event.begin();
+        boolean solved = pathFindingDriver.execute( updatePaths, group1, group2 );
+        if ( event.shouldCommit() ) {
+            event.group = group1;
+            event.obstacleGroup = group2;
+            event.updatePaths = updatePaths;
+            event.solved = solved;
+            event.commit();
+        }
+        return solved;
+    }
+
+    private void merge(Integer group1, Integer group2){
+        agentGroups.union( group1, group2 );
+        GroupMergeEvent event = new GroupMergeEvent();
+        if ( event.shouldCommit() ) {
+            event.group = group1;
+            event.mergedGroup = group2;
+            event.commit();
+        }
+    }
 }
 /*
     while (!conflicts.isEmpty()) do
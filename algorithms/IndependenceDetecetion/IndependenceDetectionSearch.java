@@ -5,6 +5,7 @@ import agents.path.*;
 import algorithms.*;
 import algorithms.conflicts.AgentConflict;
 import algorithms.conflicts.AlgorithmConflict;
+import algorithms.heuristics.DistanceTableCache;
 import algorithms.trees.*;
 import dataStructures.DisjointSetMap;
 import exceptions.SolutionNotFoundException;
@@ -30,6 +31,8 @@ public class IndependenceDetectionSearch {
     protected List<AlgorithmConflict> conflicts =  new ArrayList<>();
     private double weight = DefaultParameters.OIDWeight; // Allowed deviation from optimal path sum of costs
     private HashMap<Integer, ClientOperation> operationAgentMap;
+    private boolean staticDistanceTables = false; // low level searches use exact static distances as heuristic
+    private DistanceTableCache distanceTables;      // tables of the current search, handed to the searches of every group
 
     public IndependenceDetectionSearch( Map map, List<Agent> agents, AlgorithmName sapfAlgorithm, AlgorithmName mapfAlgorithm, HashMap<Integer, ClientOperation> operationAgentMap ) {
         this.map = map;
@@ -53,7 +56,20 @@ public class IndependenceDetectionSearch {
         // use the independence detection framework to find conflict free paths for all agents
         IndependenceDetection id = new IndependenceDetection( conflicts, agents, agentGroups );
         id.setFindPathMethod( new findPath() );
-        id.findPaths();
+        distanceTables = staticDistanceTables ? new DistanceTableCache( map ) : null;
+        try {
+            id.findPaths();
+        } finally {
+            distanceTables = null;
+        }
+    }
+
+    /**
+     * @param staticDistanceTables true to build one static distance table per goal for the whole search, used as heuristic
+     * by the low level A* searches of every group (see DistanceTableCache)
+     */
+    public void setStaticDistanceTables( boolean staticDistanceTables ){
+        this.staticDistanceTables = staticDistanceTables;
     }
 
     /**
@@ -86,6 +102,7 @@ public class IndependenceDetectionSearch {
                     : InFlightUtils.cloneAgents( currentAgents );
             // find new paths
             Node root = new Node( null, null );
+            root.setDistanceTables( distanceTables );
 
             // if single agent, run sapAlgorithm, else run mapfAlgorithm
             boolean algorithmSuccessful = runPathFindingAlgorithm( agentsToFindPaths, tempMap, root );
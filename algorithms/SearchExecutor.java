@@ -0,0 +1,103 @@
+package algorithms;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import utils.Debug;
+import utils.DebugEnums;
+
+/**
+ * Executor shared by every search that runs findPath on a separate thread.
+ * Threads are reused between calls instead of creating a new executor for each search. Nested searches (CBS -> A*, ID -> CBS -> A*)
+ * block their worker while waiting for the child search, so the platform pool is unbounded and grows on demand; idle threads are
+ * released after the keep alive time.
+ * In inline mode findPath does not use the executor at all: the search runs on the caller's thread and checks its own deadline.
+ */
+public final class SearchExecutor {
+
+	public enum ThreadType {
+		PLATFORM, VIRTUAL
+	}
+
+	private static final AtomicInteger _threadCounter = new AtomicInteger();
+	private static ThreadType _threadType = ThreadType.PLATFORM;
+	private static long _keepAliveTime = 60000;
+	private static ExecutorService _service;
+	private static volatile boolean _inline = false;
+	private static volatile int _deadlineCheckInterval = 32;
+
+	private SearchExecutor() {
+	}
+
+	/**
+	 * Changes the type of threads used by the searches. Searches already running keep their thread.
+	 * @param threadType
+	 * @param keepAliveTime time in milliseconds an idle platform thread is kept in the pool
+	 */
+	public static synchronized void configure(ThreadType threadType, long keepAliveTime) {
+		_threadType = threadType;
+		_keepAliveTime = keepAliveTime;
+		if(_service != null) {
+			_service.shutdown();
+			_service = null;
+		}
+	}
+
+	/**
+	 * @param inline if true, findPath runs the search on the caller's thread, nested searches included
+	 * @param deadlineCheckInterval number of expansions between two reads of the clock
+	 */
+	public static void setInline(boolean inline, int deadlineCheckInterval) {
+		_inline = inline;
+		_deadlineCheckInterval = Math.max(1, deadlineCheckInterval);
+	}
+	
+	public static boolean isInline() {
+		return _inline;
+	}
+	
+	public static int getDeadlineCheckInterval() {
+		return _deadlineCheckInterval;
+	}
+
+	public static Future<?> submit(Runnable task) {
+		return getService().submit(task);
+	}
+
+	public static synchronized ExecutorService getService() {
+		if(_service == null) {
+			_service = createService();
+		}
+		return _service;
+	}
+
+	public static synchronized ThreadType getThreadType() {
+		return _threadType;
+	}
+
+	private static ExecutorService createService() {
+		if(_threadType == ThreadType.VIRTUAL) {
+			// looked up reflectively so the library still runs on JDKs without virtual threads
+			try {
+				return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+			}
+			catch(ReflectiveOperationException e) {
+				Debug.print(DebugEnums.ERROR, "Virtual threads are not available in this JVM, using platform threads for the searches");
+				_threadType = ThreadType.PLATFORM;
+			}
+		}
+		ThreadFactory factory = runnable -> {
+			Thread thread = new Thread(runnable, "search-" + _threadCounter.incrementAndGet());
+			// do not keep the JVM alive because of idle search threads
+			thread.setDaemon(true);
+			return thread;
+		};
+		return new ThreadPoolExecutor(0, Integer.MAX_VALUE, _keepAliveTime, TimeUnit.MILLISECONDS, new SynchronousQueue<Runnable>(), factory);
+	}
+}
@@ -0,0 +1,105 @@
+package algorithms.collections;
+
+import java.util.Arrays;
+
+/**
+ * Binary min heap of (key, value) pairs in primitive arrays, e.g. (distance, record) pairs of a Dijkstra search.
+ * There is no decrease key: the value is pushed again with the new key and the stale entries are skipped by the caller
+ * when they are popped. Equal keys can be ordered by a second key, larger first (e.g. g among equal f values, like
+ * FValueComparator).
+ */
+public class FloatIntHeap {
+
+	private float[] _keys = new float[256];
+	private float[] _ties = new float[256];
+	private int[] _values = new int[256];
+	private int _size = 0;
+
+	public boolean isEmpty() {
+		return _size == 0;
+	}
+
+	public int size() {
+		return _size;
+	}
+
+	/**
+	 * @return smallest key, the heap must not be empty
+	 */
+	public float peekKey() {
+		return _keys[0];
+	}
+
+	/**
+	 * @return value of the smallest key, the heap must not be empty
+	 */
+	public int peekValue() {
+		return _values[0];
+	}
+
+	public void push(float key, int value) {
+		push(key, 0, value);
+	}
+
+	/**
+	 * @param tie second key, the larger one is popped first among equal keys
+	 */
+	public void push(float key, float tie, int value) {
+		if(_size == _keys.length) {
+			_keys = Arrays.copyOf(_keys, _size << 1);
+			_ties = Arrays.copyOf(_ties, _size << 1);
+			_values = Arrays.copyOf(_values, _size << 1);
+		}
+		int i = _size++;
+		while(i > 0) {
+			int parent = (i - 1) >>> 1;
+			if(!isBefore(key, tie, _keys[parent], _ties[parent])) {
+				break;
+			}
+			_keys[i] = _keys[parent];
+			_ties[i] = _ties[parent];
+			_values[i] = _values[parent];
+			i = parent;
+		}
+		_keys[i] = key;
+		_ties[i] = tie;
+		_values[i] = value;
+	}
+
+	private static boolean isBefore(float key, float tie, float otherKey, float otherTie) {
+		return key < otherKey || (key == otherKey && tie > otherTie);
+	}
+
+	/**
+	 * @return value of the smallest key, which is removed
+	 */
+	public int pop() {
+		int result = _values[0];
+		float key = _keys[--_size];
+		float tie = _ties[_size];
+		int value = _values[_size];
+		int i = 0;
+		int half = _size >>> 1;
+		while(i < half) {
+			int child = 2 * i + 1;
+			if(child + 1 < _size && isBefore(_keys[child + 1], _ties[child + 1], _keys[child], _ties[child])) {
+				child++;
+			}
+			if(!isBefore(_keys[child], _ties[child], key, tie)) {
+				break;
+			}
+			_keys[i] = _keys[child];
+			_ties[i] = _ties[child];
+			_values[i] = _values[child];
+			i = child;
+		}
+		_keys[i] = key;
+		_ties[i] = tie;
+		_values[i] = value;
+		return result;
+	}
+
+	public void clear() {
+		_size = 0;
+	}
+}
@@ -0,0 +1,149 @@
+package algorithms.collections;
+
+import java.util.Arrays;
+
+/**
+ * Map from long to int with open addressing (linear probing), e.g. from a voxel key to the index of a node.
+ * Keys and values are stored in primitive arrays, nothing is boxed. Entries cannot be removed.
+ * A slot is used only if its stamp is the current one, so clear is O(1) and the map can be reused between searches
+ * without filling its arrays.
+ */
+public class LongIntHashMap {
+
+	private static final int DEFAULT_CAPACITY = 1024;
+
+	private long[] _keys;
+	private int[] _values;
+	private int[] _stamps;
+	private int _stamp;
+	private int _mask;
+	private int _size;
+	private final int _missingValue;
+
+	public LongIntHashMap() {
+		this(DEFAULT_CAPACITY, -1);
+	}
+
+	/**
+	 * @param expectedSize number of entries that fit before the first resize
+	 * @param missingValue returned by get for keys that are not in the map
+	 */
+	public LongIntHashMap(int expectedSize, int missingValue) {
+		int capacity = tableSize(expectedSize);
+		_keys = new long[capacity];
+		_values = new int[capacity];
+		_stamps = new int[capacity];
+		_stamp = 1;
+		_mask = capacity - 1;
+		_size = 0;
+		_missingValue = missingValue;
+	}
+
+	/**
+	 * @return power of two with room for the expected size at a load factor of 0.5
+	 */
+	static int tableSize(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(2, expectedSize) * 2 - 1) << 1;
+		return Math.max(capacity, 4);
+	}
+
+	/**
+	 * Spreads the bits of the key (voxel keys differ mostly in their low bits)
+	 */
+	public static int mix(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		return (int)key;
+	}
+
+	/**
+	 * @return the value of the key, or the missing value
+	 */
+	public int get(long key) {
+		int slot = mix(key) & _mask;
+		while(_stamps[slot] == _stamp) {
+			if(_keys[slot] == key) {
+				return _values[slot];
+			}
+			slot = (slot + 1) & _mask;
+		}
+		return _missingValue;
+	}
+
+	public boolean containsKey(long key) {
+		int slot = mix(key) & _mask;
+		while(_stamps[slot] == _stamp) {
+			if(_keys[slot] == key) {
+				return true;
+			}
+			slot = (slot + 1) & _mask;
+		}
+		return false;
+	}
+
+	/**
+	 * @return the previous value of the key, or the missing value
+	 */
+	public int put(long key, int value) {
+		int slot = mix(key) & _mask;
+		while(_stamps[slot] == _stamp) {
+			if(_keys[slot] == key) {
+				int previous = _values[slot];
+				_values[slot] = value;
+				return previous;
+			}
+			slot = (slot + 1) & _mask;
+		}
+		_keys[slot] = key;
+		_values[slot] = value;
+		_stamps[slot] = _stamp;
+		if(++_size > (_keys.length >> 1)) {
+			rehash(_keys.length << 1);
+		}
+		return _missingValue;
+	}
+
+	private void rehash(int capacity) {
+		long[] keys = _keys;
+		int[] values = _values;
+		int[] stamps = _stamps;
+		int stamp = _stamp;
+		_keys = new long[capacity];
+		_values = new int[capacity];
+		_stamps = new int[capacity];
+		_stamp = 1;
+		_mask = capacity - 1;
+		for(int i = 0; i < keys.length; i++) {
+			if(stamps[i] == stamp) {
+				int slot = mix(keys[i]) & _mask;
+				while(_stamps[slot] == _stamp) {
+					slot = (slot + 1) & _mask;
+				}
+				_keys[slot] = keys[i];
+				_values[slot] = values[i];
+				_stamps[slot] = _stamp;
+			}
+		}
+	}
+
+	/**
+	 * Empties the map in O(1) and keeps its capacity
+	 */
+	public void clear() {
+		_size = 0;
+		if(++_stamp == 0) {
+			// the stamps wrapped around, slots of an old stamp could look used again
+			Arrays.fill(_stamps, 0);
+			_stamp = 1;
+		}
+	}
+
+	public int size() {
+		return _size;
+	}
+
+	public boolean isEmpty() {
+		return _size == 0;
+	}
+}
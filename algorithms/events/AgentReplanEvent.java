@@ -0,0 +1,23 @@
+package algorithms.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event covering the single agent search of one agent in Cooperative A*
+ */
+@Name("pathfinding.AgentReplan")
+@Label("Agent Replan")
+@Category({"Pathfinding", "Cooperative A*"})
+@Description("New path for an agent, with the paths already accepted as obstacles")
+public class AgentReplanEvent extends Event {
+
+	@Label("Agent")
+	public int agentId;
+
+	@Label("Solved")
+	public boolean solved;
+}
@@ -0,0 +1,33 @@
+package algorithms.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event covering the expansion of one constraint tree node by CBS and its subclasses
+ */
+@Name("pathfinding.ConstraintTreeExpansion")
+@Label("Constraint Tree Expansion")
+@Category({"Pathfinding", "CBS"})
+@Description("Expansion of a constraint tree node, including the low level searches of its children")
+public class ConstraintTreeExpansionEvent extends Event {
+
+	@Label("Algorithm")
+	public String algorithm;
+
+	@Label("Conflicts")
+	@Description("Number of conflicts of the expanded node")
+	public int conflicts;
+
+	@Label("Children")
+	@Description("Children produced, a child is dropped when its low level search finds no path")
+	public int children;
+
+	@Label("Low Level Time")
+	@Timespan(Timespan.NANOSECONDS)
+	public long lowLevelTime;
+}
@@ -0,0 +1,21 @@
+package algorithms.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event emitted when independence detection merges two groups of agents
+ */
+@Name("pathfinding.GroupMerge")
+@Label("Group Merge")
+@Category({"Pathfinding", "Independence Detection"})
+public class GroupMergeEvent extends Event {
+
+	@Label("Group")
+	public int group;
+
+	@Label("Merged Group")
+	public int mergedGroup;
+}
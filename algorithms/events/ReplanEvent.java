@@ -0,0 +1,31 @@
+package algorithms.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event covering the re-planning of a group of agents by independence detection
+ */
+@Name("pathfinding.Replan")
+@Label("Group Replan")
+@Category({"Pathfinding", "Independence Detection"})
+@Description("Search for new paths of a group of agents")
+public class ReplanEvent extends Event {
+
+	@Label("Group")
+	public int group;
+
+	@Label("Obstacle Group")
+	@Description("Group whose paths are kept as obstacles, -1 if none")
+	public int obstacleGroup;
+
+	@Label("Update Paths")
+	@Description("Paths are changed even if the cost is above the bound")
+	public boolean updatePaths;
+
+	@Label("Solved")
+	public boolean solved;
+}
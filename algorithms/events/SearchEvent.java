@@ -0,0 +1,34 @@
+package algorithms.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event covering one BFSearch.findPath call, nested searches included
+ */
+@Name("pathfinding.Search")
+@Label("Search")
+@Category({"Pathfinding", "Search"})
+@Description("One findPath call of a best first search")
+public class SearchEvent extends Event {
+
+	@Label("Algorithm")
+	public String algorithm;
+
+	@Label("Time Limit")
+	@Timespan(Timespan.MILLISECONDS)
+	public long timeLimit;
+
+	@Label("Timed Out")
+	public boolean timedOut;
+
+	@Label("Expanded Nodes")
+	public long expanded;
+
+	@Label("Generated Nodes")
+	public long generated;
+}
@@ -0,0 +1,19 @@
+package algorithms.heuristics;
+
+import algorithms.trees.State;
+
+/**
+ * Heuristic that can evaluate all the neighbors of an expansion in one call, from their coordinates
+ */
+public interface BatchHeuristicInterface extends HeuristicInterface {
+	
+	/**
+	 * @param x x coordinates of the positions
+	 * @param y y coordinates of the positions
+	 * @param z z coordinates of the positions
+	 * @param count number of positions in the arrays
+	 * @param goal goal state of the search
+	 * @param values heuristic value of each position, filled by the call
+	 */
+	public void calcHeuristics(double[] x, double[] y, double[] z, int count, State goal, float[] values);
+}
@@ -0,0 +1,104 @@
+package algorithms.heuristics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Agent pairs in conflict in a constraint tree node with two lower bounds of the cost increase needed to solve each
+ * pair, see ConflictGraphHeuristic: the increase that one of the two agents must pay (single) and the increase of the
+ * pair (joint). A pair with a positive bound is an edge of the graph.
+ * A child node starts from the graph of its parent without the pairs of the replanned agent: the other pairs keep their
+ * conflicts and their bounds still hold with the constraint added by the child. The bound of the whole graph is cached
+ * and only computed again if an edge changed.
+ */
+public class ConflictGraph {
+
+	private final HashMap<Long, Double> _single;
+	private final HashMap<Long, Double> _joint;
+	private double _bound = Double.NaN;
+
+	public ConflictGraph() {
+		_single = new HashMap<Long, Double>();
+		_joint = new HashMap<Long, Double>();
+	}
+
+	/**
+	 * @return copy of the graph without the pairs of the agent
+	 */
+	public ConflictGraph withoutAgent(int agentId) {
+		ConflictGraph graph = new ConflictGraph();
+		boolean removedEdge = false;
+		for(Map.Entry<Long, Double> pair : _single.entrySet()) {
+			long key = pair.getKey();
+			if(ConflictGraphHeuristic.first(key) == agentId || ConflictGraphHeuristic.second(key) == agentId) {
+				removedEdge |= isEdge(key);
+				continue;
+			}
+			graph._single.put(key, pair.getValue());
+			graph._joint.put(key, _joint.get(key));
+		}
+		if(!removedEdge) {
+			graph._bound = _bound;
+		}
+		return graph;
+	}
+
+	public boolean contains(long pairKey) {
+		return _single.containsKey(pairKey);
+	}
+
+	public void put(long pairKey, double single, double joint) {
+		_single.put(pairKey, single);
+		_joint.put(pairKey, joint);
+		if(single > 0 || joint > 0) {
+			_bound = Double.NaN;
+		}
+	}
+
+	private boolean isEdge(long pairKey) {
+		return _single.get(pairKey) > 0 || _joint.get(pairKey) > 0;
+	}
+
+	/**
+	 * @return single bound of the pairs where it is positive
+	 */
+	public HashMap<Long, Double> getSingleEdges() {
+		return getEdges(_single);
+	}
+
+	/**
+	 * @return joint bound of the pairs where it is positive
+	 */
+	public HashMap<Long, Double> getJointEdges() {
+		return getEdges(_joint);
+	}
+
+	private static HashMap<Long, Double> getEdges(HashMap<Long, Double> bounds) {
+		HashMap<Long, Double> edges = new HashMap<Long, Double>();
+		for(Map.Entry<Long, Double> pair : bounds.entrySet()) {
+			if(pair.getValue() > 0) {
+				edges.put(pair.getKey(), pair.getValue());
+			}
+		}
+		return edges;
+	}
+
+	public boolean hasBound() {
+		return !Double.isNaN(_bound);
+	}
+
+	public double getBound() {
+		return _bound;
+	}
+
+	public void setBound(double bound) {
+		_bound = bound;
+	}
+
+	/**
+	 * @return number of pairs, edges or not
+	 */
+	public int size() {
+		return _single.size();
+	}
+}
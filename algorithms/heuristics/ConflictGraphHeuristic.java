@@ -0,0 +1,337 @@
+package algorithms.heuristics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import agents.Agent;
+import agents.path.Path;
+import agents.path.PathLine;
+import algorithms.CBS.CBSState;
+import algorithms.conflicts.AgentConflict;
+import algorithms.conflicts.AlgorithmConflict;
+import algorithms.trees.State;
+import exceptions.TimeoutException;
+import main.ConflictDetection;
+import utils.AgentUtils;
+
+/**
+ * Sum of costs of a constraint tree node plus a lower bound of the cost still needed to solve its conflicts, computed on
+ * the graph of the agent pairs in conflict in the node (one conflict per pair, the earliest).
+ *
+ * Each pair is checked with a small CBS over the two agents only, with the agent obstacles of the node: the children
+ * of its nodes replan one agent with CBSState.replan, exactly as the children of the constraint tree would. Every
+ * solution of the node solves the pair under one of the leaves of this pair search, so with an optimal low level
+ * search the leaves give two lower bounds of the cost increase of the pair, relative to the paths of the node:
+ * - single: the smallest, over the leaves, of the larger increase of the two agents. One of the two agents has to
+ * increase its cost by at least this much.
+ * - joint: the smallest, over the leaves, of the increase of both agents.
+ * The modes differ in how far each pair is searched and how the bounds are combined:
+ * - CG: only the conflict of the node is split, so a pair is an edge when the conflict is cardinal (both children cost
+ * more). Bound: size of a minimum vertex cover of the edges times the smallest single bound.
+ * - DG: the pair search goes on while the cost increase of the pairs can grow (MAX_PAIR_EXPANSIONS), so pairs whose
+ * conflict is not cardinal but that cannot be solved without a cost increase are edges too. Same bound as CG.
+ * - WDG: same pair search as DG, ordered by the joint increase. The bound is also at least the weight of a matching of
+ * the joint bounds, a lower bound of the edge weighted minimum vertex cover.
+ * A pair whose search runs out of time keeps the bounds of its open leaves, which are still lower bounds.
+ *
+ * The graph is cached on the CBSState (see ConflictGraph): a child only searches the pairs of the replanned agent.
+ * The heuristic keeps no state between calls, one instance can be shared by concurrent searches.
+ */
+public class ConflictGraphHeuristic implements HeuristicInterface {
+
+	public enum Mode {
+		CG, DG, WDG
+	}
+
+	private static final int MAX_COVER_CALLS = 100000; //over this, the exact cover falls back to a matching bound
+	private static final int MAX_COVER_VERTICES = 64;
+	private static final int MAX_PAIR_EXPANSIONS = 8; //nodes expanded by the pair search of DG and WDG
+
+	private final Mode _mode;
+
+	public ConflictGraphHeuristic(Mode mode) {
+		_mode = mode;
+	}
+
+	@Override
+	public float calcHeuristic(State current, State goal) {
+		CBSState state = (CBSState)current;
+		return (float)(getSumOfCosts(state.getAllSingleAgentPaths()) + getConflictBound(state));
+	}
+
+	public static double getSumOfCosts(List<Path> paths) {
+		double cost = 0;
+		for(Path path : paths) {
+			cost += getCost(path);
+		}
+		return cost;
+	}
+
+	private static double getCost(Path path) {
+		return path.getEndTimestep() - path.getStartTimestep();
+	}
+
+	/**
+	 * Adds the pairs in conflict that are not in the graph of the state yet
+	 * @return lower bound of the cost increase needed to solve the conflicts of the state
+	 */
+	public double getConflictBound(CBSState state) {
+		ConflictGraph graph = state.getConflictGraph();
+		if(graph == null) {
+			graph = new ConflictGraph();
+			state.setConflictGraph(graph);
+		}
+		List<AgentConflict> conflicts = new ArrayList<AgentConflict>(state.getConflicts());
+		if(state.getEarliestConflict() != null) {
+			conflicts.add((AgentConflict)state.getEarliestConflict());
+		}
+		for(AgentConflict conflict : conflicts) {
+			long key = pairKey(conflict.getAgent1().getId(), conflict.getAgent2().getId());
+			if(!graph.contains(key)) {
+				double[] bounds = searchPair(state, conflict);
+				graph.put(key, bounds[0], bounds[1]);
+			}
+		}
+		if(!graph.hasBound()) {
+			graph.setBound(getGraphBound(graph));
+		}
+		return graph.getBound();
+	}
+
+	private double getGraphBound(ConflictGraph graph) {
+		HashMap<Long, Double> edges = graph.getSingleEdges();
+		double bound = 0;
+		if(!edges.isEmpty()) {
+			double minWeight = Double.MAX_VALUE;
+			for(double weight : edges.values()) {
+				minWeight = Math.min(minWeight, weight);
+			}
+			bound = getMinimumVertexCover(edges) * minWeight;
+		}
+		if(_mode == Mode.WDG) {
+			bound = Math.max(bound, getMatchingWeight(graph.getJointEdges()));
+		}
+		return bound;
+	}
+
+	/**
+	 * Best first search over the splits of the conflicts of the pair, by the larger increase (CG, DG) or by the joint
+	 * increase (WDG). Stops at the first leaf without conflict, after the maximum number of expansions or when the time
+	 * of the search is over
+	 * @return single and joint bounds of the leaves, infinite if the pair has no solution
+	 */
+	private double[] searchPair(CBSState state, AgentConflict conflict) {
+		List<Path> paths = state.getAllSingleAgentPaths();
+		Agent agent1 = conflict.getAgent1();
+		Agent agent2 = conflict.getAgent2();
+		Path path1 = paths.get(AgentUtils.getPathIndexFromAgentId(paths, agent1.getId()));
+		Path path2 = paths.get(AgentUtils.getPathIndexFromAgentId(paths, agent2.getId()));
+		Comparator<PairNode> order = _mode == Mode.WDG
+				? Comparator.comparingDouble(node -> node._increase1 + node._increase2)
+				: Comparator.comparingDouble(node -> Math.max(node._increase1, node._increase2));
+		PriorityQueue<PairNode> open = new PriorityQueue<PairNode>(order);
+		open.add(new PairNode(new HashMap<Integer, HashSet<PathLine>>(), path1, path2, 0, 0, conflict));
+		int maxExpansions = _mode == Mode.CG ? 1 : MAX_PAIR_EXPANSIONS;
+		for(int expansions = 0; expansions < maxExpansions && !open.isEmpty() && open.peek()._conflict != null; expansions++) {
+			PairNode node = open.peek();
+			List<PairNode> children = new ArrayList<PairNode>();
+			try {
+				for(Agent agent : new Agent[] {agent1, agent2}) {
+					PairNode child = split(state, node, agent, agent1.getId(), getCost(path1), getCost(path2));
+					if(child != null) {
+						children.add(child);
+					}
+				}
+			} catch (TimeoutException e) {
+				//the node stays a leaf
+				break;
+			}
+			open.poll();
+			open.addAll(children);
+		}
+		double single = Double.POSITIVE_INFINITY;
+		double joint = Double.POSITIVE_INFINITY;
+		for(PairNode leaf : open) {
+			single = Math.min(single, Math.max(leaf._increase1, leaf._increase2));
+			joint = Math.min(joint, leaf._increase1 + leaf._increase2);
+		}
+		return new double[] {single, joint};
+	}
+
+	/**
+	 * Replans the agent with the location of the other agent at the conflict of the node as a new obstacle
+	 * @return null if the agent has no path
+	 */
+	private static PairNode split(CBSState state, PairNode node, Agent agent, int agent1Id, double cost1, double cost2) throws TimeoutException {
+		AgentConflict conflict = node._conflict;
+		boolean first = agent.getId() == agent1Id;
+		PathLine location = conflict.getAgent1().getId() == agent.getId() ? conflict.getLocation2() : conflict.getLocation1();
+		HashMap<Integer, HashSet<PathLine>> obstacles = new HashMap<Integer, HashSet<PathLine>>();
+		for(Map.Entry<Integer, HashSet<PathLine>> entry : node._obstacles.entrySet()) {
+			obstacles.put(entry.getKey(), new HashSet<PathLine>(entry.getValue()));
+		}
+		obstacles.computeIfAbsent((int)Math.floor(conflict.getTimestep()), t -> new HashSet<PathLine>()).add(location);
+		Path path = state.replan(agent, obstacles);
+		if(path == null) {
+			return null;
+		}
+		Path path1 = first ? path : node._path1;
+		Path path2 = first ? node._path2 : path;
+		List<AlgorithmConflict> conflicts = new ArrayList<AlgorithmConflict>();
+		ConflictDetection.checkPathConflict(path1, path2, null, null, false, conflicts, true);
+		AgentConflict next = conflicts.isEmpty() ? null : (AgentConflict)conflicts.get(0);
+		return new PairNode(obstacles, path1, path2, getCost(path1) - cost1, getCost(path2) - cost2, next);
+	}
+
+	/**
+	 * Node of the search over one pair: the obstacles added to the ones of the constraint tree node, the paths of the two
+	 * agents, their cost increase and their earliest conflict (null for a solution of the pair)
+	 */
+	private static final class PairNode {
+		private final HashMap<Integer, HashSet<PathLine>> _obstacles;
+		private final Path _path1;
+		private final Path _path2;
+		private final double _increase1;
+		private final double _increase2;
+		private final AgentConflict _conflict;
+
+		PairNode(HashMap<Integer, HashSet<PathLine>> obstacles, Path path1, Path path2, double increase1, double increase2, AgentConflict conflict) {
+			_obstacles = obstacles;
+			_path1 = path1;
+			_path2 = path2;
+			_increase1 = increase1;
+			_increase2 = increase2;
+			_conflict = conflict;
+		}
+	}
+
+	public static long pairKey(int agent1, int agent2) {
+		int low = Math.min(agent1, agent2);
+		int high = Math.max(agent1, agent2);
+		return ((long)low << 32) | (high & 0xffffffffL);
+	}
+
+	static int first(long key) {
+		return (int)(key >> 32);
+	}
+
+	static int second(long key) {
+		return (int)key;
+	}
+
+	/**
+	 * @return size of a minimum vertex cover, or of a greedy matching (a lower bound of it) if the graph is too large
+	 */
+	private static int getMinimumVertexCover(HashMap<Long, Double> edges) {
+		HashMap<Integer, Integer> vertices = new HashMap<Integer, Integer>();
+		for(long key : edges.keySet()) {
+			vertices.putIfAbsent(first(key), vertices.size());
+			vertices.putIfAbsent(second(key), vertices.size());
+		}
+		if(vertices.size() > MAX_COVER_VERTICES) {
+			return getMatchingSize(edges);
+		}
+		long[] adjacency = new long[vertices.size()];
+		for(long key : edges.keySet()) {
+			int a = vertices.get(first(key));
+			int b = vertices.get(second(key));
+			adjacency[a] |= 1L << b;
+			adjacency[b] |= 1L << a;
+		}
+		long all = vertices.size() == 64 ? -1L : (1L << vertices.size()) - 1;
+		int cover = cover(adjacency, all, vertices.size(), new int[] {MAX_COVER_CALLS});
+		return cover < 0 ? getMatchingSize(edges) : cover;
+	}
+
+	/**
+	 * Branches on the vertex of highest degree: either it is in the cover or all its neighbors are
+	 * @param alive vertices still in the graph
+	 * @param limit size of the best cover found so far, no need to search past it
+	 * @param budget calls left for this cover, shared by the recursion
+	 * @return size of a minimum cover of the alive vertices (limit if it is not smaller), -1 if the call budget ran out
+	 */
+	private static int cover(long[] adjacency, long alive, int limit, int[] budget) {
+		if(--budget[0] < 0) {
+			return -1;
+		}
+		int vertex = -1;
+		int maxDegree = 0;
+		int edges = 0;
+		for(long rest = alive; rest != 0; rest &= rest - 1) {
+			int v = Long.numberOfTrailingZeros(rest);
+			int degree = Long.bitCount(adjacency[v] & alive);
+			edges += degree;
+			if(degree > maxDegree) {
+				maxDegree = degree;
+				vertex = v;
+			}
+		}
+		if(maxDegree == 0) {
+			return 0;
+		}
+		edges /= 2;
+		//a cover needs at least edges / maxDegree vertices
+		if((edges + maxDegree - 1) / maxDegree >= limit) {
+			return limit;
+		}
+		if(maxDegree == 1) {
+			return edges;
+		}
+		int with = cover(adjacency, alive & ~(1L << vertex), limit - 1, budget);
+		if(with < 0) {
+			return -1;
+		}
+		limit = Math.min(limit, with + 1);
+		long neighbors = adjacency[vertex] & alive;
+		int size = Long.bitCount(neighbors);
+		if(size < limit) {
+			int without = cover(adjacency, alive & ~neighbors & ~(1L << vertex), limit - size, budget);
+			if(without < 0) {
+				return -1;
+			}
+			limit = Math.min(limit, without + size);
+		}
+		return limit;
+	}
+
+	private static int getMatchingSize(HashMap<Long, Double> edges) {
+		return getMatching(edges).size();
+	}
+
+	/**
+	 * Heaviest edges first. The edges of a matching share no agent, so each one needs its own cost increase
+	 */
+	private static double getMatchingWeight(HashMap<Long, Double> edges) {
+		double weight = 0;
+		for(long key : getMatching(edges)) {
+			weight += edges.get(key);
+		}
+		return weight;
+	}
+
+	private static List<Long> getMatching(HashMap<Long, Double> edges) {
+		List<Map.Entry<Long, Double>> sorted = new ArrayList<Map.Entry<Long, Double>>(edges.entrySet());
+		sorted.sort(Map.Entry.<Long, Double>comparingByValue().reversed());
+		HashMap<Integer, Boolean> matched = new HashMap<Integer, Boolean>();
+		List<Long> matching = new ArrayList<Long>();
+		for(Map.Entry<Long, Double> edge : sorted) {
+			int a = first(edge.getKey());
+			int b = second(edge.getKey());
+			if(!matched.containsKey(a) && !matched.containsKey(b)) {
+				matched.put(a, true);
+				matched.put(b, true);
+				matching.add(edge.getKey());
+			}
+		}
+		return matching;
+	}
+
+	public Mode getMode() {
+		return _mode;
+	}
+}
@@ -7,7 +7,24 @@ import geometry.coords.UTMCoord;
 import utils.GeometryUtils;
 import utils.GeneralUtils;
 
-public class DiagonalDistanceHeuristic implements HeuristicInterface{
+public class DiagonalDistanceHeuristic implements BatchHeuristicInterface{
+	
+	private static final double SQRT3_MINUS_SQRT2 = Math.sqrt(3) - Math.sqrt(2);
+	private static final double SQRT2_MINUS_1 = Math.sqrt(2) - 1;
+	private static final float WEIGHT = 1.01f;
+	
+	protected HeuristicCache _cache; //values for starts that are not centered in their voxel
+	
+	public DiagonalDistanceHeuristic() {
+		this(HeuristicCache.shared());
+	}
+	
+	/**
+	 * @param cache cache of the values for starts that are not centered in their voxel, null to always compute them
+	 */
+	public DiagonalDistanceHeuristic(HeuristicCache cache) {
+		_cache = cache;
+	}
 
 	@Override
 	public float calcHeuristic(State currentNode, State goalNode) {
@@ -18,8 +35,36 @@ public class DiagonalDistanceHeuristic implements HeuristicInterface{
 			
 	}
 	
+	/**
+	 * Positions centered in their voxel (all the neighbors of A*) go through a loop over the arrays with no branches
+	 * nor allocations, which the JIT can vectorize. Other positions go through computeHeuristic
+	 */
+	@Override
+	public void calcHeuristics(double[] x, double[] y, double[] z, int count, State goalNode, float[] values) {
+		PointInterface goal = ((AStarState)goalNode).getPosition();
+		//the goal voxel can only be one, as in computeHeuristic
+		double goalX = (int)goal.getX();
+		double goalY = (int)goal.getY();
+		double goalZ = (int)goal.getZ();
+		for(int i = 0; i < count; i++) {
+			double dx = Math.abs(x[i] - goalX);
+			double dy = Math.abs(y[i] - goalY);
+			double dz = Math.abs(z[i] - goalZ);
+			double max = Math.max(dx, Math.max(dy, dz));
+			double min = Math.min(dx, Math.min(dy, dz));
+			double mid = dx + dy + dz - max - min;
+			values[i] = WEIGHT * (float)(SQRT3_MINUS_SQRT2 * min + SQRT2_MINUS_1 * mid + max);
+		}
+		for(int i = 0; i < count; i++) {
+			if(x[i] != (int)x[i] || y[i] != (int)y[i] || z[i] != (int)z[i]) {
+				PointInterface start = new UTMCoord(x[i], y[i], z[i], ((UTMCoord)goal).getZone(), ((UTMCoord)goal).getLatitudeBand());
+				values[i] = computeHeuristic(start, goal);
+			}
+		}
+	}
+	
 	public float computeHeuristic(PointInterface start, PointInterface goal) {
-		float weight = 1.01f;
+		float weight = WEIGHT;
 
 		//if current node is the root and the position of the start is not centered in the voxel, the computation must be different. The same happens if the goal position is not centered in the voxel
 		//to keep the heuristic admissible, select the shortest distance between the goal and the current voxel the agent is and the neighbor voxels
@@ -28,7 +73,20 @@ public class DiagonalDistanceHeuristic implements HeuristicInterface{
 		if(integerStart && integerGoal) {
 			return weight * GeometryUtils.getDiagonalDistance(start, goal);
 		}
-		
+		//the 27 voxel loops only run for starts that are not centered, which are the ones worth caching
+		if(_cache == null || integerStart) {
+			return computeOffGridHeuristic(start, goal, integerStart, integerGoal, weight);
+		}
+		Float cached = _cache.get(start, goal);
+		if(cached != null) {
+			return cached;
+		}
+		float value = computeOffGridHeuristic(start, goal, integerStart, integerGoal, weight);
+		_cache.put(start, goal, value);
+		return value;
+	}
+	
+	private float computeOffGridHeuristic(PointInterface start, PointInterface goal, boolean integerStart, boolean integerGoal, float weight) {
 		//TODO check if there is a more efficient way to return an admissible heuristic value
 		float minDistance = Float.MAX_VALUE;
 		
@@ -5,25 +5,53 @@ import algorithms.Astar.ODStar.ODStarState;
 import algorithms.trees.State;
 import geometry.coords.PointInterface;
 
-public class DiagonalDistanceHeuristicSOC extends DiagonalDistanceHeuristic {
+public class DiagonalDistanceHeuristicSOC extends DiagonalDistanceHeuristic implements IncrementalHeuristicInterface {
 
     /**
      * An extension of the diagonal distance heuristic to multi agents.
      * Uses the Sum of Cost heuristic (SOC)
-     * Currently this is a very naive way of computing the SOC as it recalculates it for every agent at each state
-     * TODO: only update the needed agent
+     * A child state adds the change in cost of the agent that moved to the value of its parent, so it costs two distance
+     * computations whatever the number of agents, and nothing is stored in the states
      */
 
+    private DiagonalDistanceHeuristic agentHeuristic;    // cost of each agent, this heuristic by default
+
+    public DiagonalDistanceHeuristicSOC(){
+        agentHeuristic = null;
+    }
+
+    /**
+     * @param agentHeuristic heuristic of each agent (e.g. LandmarkHeuristic)
+     */
+    public DiagonalDistanceHeuristicSOC( DiagonalDistanceHeuristic agentHeuristic ){
+        this.agentHeuristic = agentHeuristic;
+    }
+
     @Override
     public float calcHeuristic( State currentNode, State goalNode) {
+        ODStarState state = (ODStarState) currentNode;
         float soc = 0;
-        for ( Agent agent : ( (ODStarState) currentNode).getAgents() ){
-            soc += getSomeOfCosts( agent.getPath().getWaypoints().get( agent.getPath().getWaypoints().size() - 1 ), agent.getGoal());
+        for ( Agent agent : state.getAgents() ){
+            soc += getAgentHeuristic( agent );
         }
         return soc;
     }
 
-    private double getSomeOfCosts( PointInterface start, PointInterface goal ){
-        return super.computeHeuristic(start, goal);
+    @Override
+    public float calcHeuristic( State parent, State child, int movedAgentId ) {
+        float before = getAgentHeuristic( ((ODStarState) parent).getAgent( movedAgentId ) );
+        float after = getAgentHeuristic( ((ODStarState) child).getAgent( movedAgentId ) );
+        return (float) parent.getHVal() + after - before;
+    }
+
+    /**
+     * @return cost from the last waypoint of the agent to its goal
+     */
+    private float getAgentHeuristic( Agent agent ){
+        return getSomeOfCosts( agent.getPath().getWaypoints().get( agent.getPath().getWaypoints().size() - 1 ), agent.getGoal());
+    }
+
+    private float getSomeOfCosts( PointInterface start, PointInterface goal ){
+        return agentHeuristic == null ? super.computeHeuristic(start, goal) : agentHeuristic.computeHeuristic(start, goal);
     }
 }
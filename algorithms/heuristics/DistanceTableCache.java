@@ -0,0 +1,99 @@
+package algorithms.heuristics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+import algorithms.Astar.VoxelKey;
+import geometry.coords.PointInterface;
+import map.Map;
+
+/**
+ * Static distance tables of one run (e.g. one CBS, ECBS or ID search), so the low level searches toward the same goal
+ * build the table once. The search that owns the run creates the cache with its static map and hands it to its low
+ * level searches (see Node.setDistanceTables and AStarSearch.setDistanceTables). The low level searches can run on
+ * several threads. Tables are found by map, goal voxel and agent radius, and are dropped with the cache.
+ */
+public class DistanceTableCache {
+
+	private final Map _map;
+	private final ConcurrentHashMap<TableKey, StaticDistanceTable> _tables;
+	private volatile int _maxVoxels;
+
+	/**
+	 * @param map static map of the run, only Map.inMap is queried
+	 */
+	public DistanceTableCache(Map map) {
+		_map = map;
+		_tables = new ConcurrentHashMap<TableKey, StaticDistanceTable>();
+		_maxVoxels = StaticDistanceTable.DEFAULT_MAX_VOXELS;
+	}
+
+	/**
+	 * @return the table of the goal voxel over the map of the run, built if it is not cached
+	 */
+	public StaticDistanceTable getTable(PointInterface goalVoxel, double agentRadius) {
+		return getTable(goalVoxel, agentRadius, null);
+	}
+
+	/**
+	 * @param stop stops the build of a table that is not cached. A stopped table is returned (it is still a lower bound)
+	 * but not cached, the next search toward the goal builds it again
+	 */
+	public StaticDistanceTable getTable(PointInterface goalVoxel, double agentRadius, BooleanSupplier stop) {
+		TableKey key = new TableKey(_map, VoxelKey.pack(goalVoxel), agentRadius);
+		StaticDistanceTable table = _tables.get(key);
+		if(table != null) {
+			return table;
+		}
+		table = new StaticDistanceTable(_map, goalVoxel, agentRadius, _maxVoxels, stop);
+		if(table.isStopped()) {
+			return table;
+		}
+		StaticDistanceTable previous = _tables.putIfAbsent(key, table);
+		return previous == null ? table : previous;
+	}
+
+	public Map getMap() {
+		return _map;
+	}
+
+	public int getMaxVoxels() {
+		return _maxVoxels;
+	}
+
+	/**
+	 * @param maxVoxels maximum number of voxels searched for each table built from now on
+	 */
+	public void setMaxVoxels(int maxVoxels) {
+		_maxVoxels = maxVoxels;
+	}
+
+	/**
+	 * Map (by identity), goal voxel and agent radius of a table
+	 */
+	private static final class TableKey {
+		private final Map _map;
+		private final long _goal;
+		private final double _agentRadius;
+
+		TableKey(Map map, long goal, double agentRadius) {
+			_map = map;
+			_goal = goal;
+			_agentRadius = agentRadius;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(!(o instanceof TableKey)) {
+				return false;
+			}
+			TableKey other = (TableKey)o;
+			return _map == other._map && _goal == other._goal && _agentRadius == other._agentRadius;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * System.identityHashCode(_map) + Long.hashCode(_goal)) + Double.hashCode(_agentRadius);
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package algorithms.heuristics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import algorithms.Astar.VoxelKey;
+import geometry.coords.PointInterface;
+
+/**
+ * Bounded cache of heuristic values between two positions, evicting the least recently used entry once full.
+ * Entries are keyed by the packed voxels of both positions plus their exact coordinates, so positions that are not
+ * centered in their voxel get their own entries. The values only depend on the two positions, so one cache can be
+ * shared by every heuristic instance: the shared one is used by default, so the low level searches of a CBS or ID
+ * run toward the same goals reuse the values computed by the previous ones. Thread safe.
+ */
+public class HeuristicCache {
+
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+
+	private static final HeuristicCache _shared = new HeuristicCache(DEFAULT_CAPACITY);
+
+	private final LinkedHashMap<Key, Float> _values;
+	private long _hits;
+	private long _misses;
+
+	/**
+	 * @param capacity maximum number of entries
+	 */
+	public HeuristicCache(final int capacity) {
+		if(capacity <= 0) {
+			throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+		}
+		_values = new LinkedHashMap<Key, Float>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Float> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * @return the cache shared by the heuristics that were not given one
+	 */
+	public static HeuristicCache shared() {
+		return _shared;
+	}
+
+	/**
+	 * @return the cached value, null if there is none
+	 */
+	public synchronized Float get(PointInterface start, PointInterface goal) {
+		Float value = _values.get(new Key(start, goal));
+		if(value == null) {
+			_misses++;
+		}
+		else {
+			_hits++;
+		}
+		return value;
+	}
+
+	public synchronized void put(PointInterface start, PointInterface goal, float value) {
+		_values.put(new Key(start, goal), value);
+	}
+
+	public synchronized void clear() {
+		_values.clear();
+		_hits = 0;
+		_misses = 0;
+	}
+
+	public synchronized int size() {
+		return _values.size();
+	}
+
+	public synchronized long getHits() {
+		return _hits;
+	}
+
+	public synchronized long getMisses() {
+		return _misses;
+	}
+
+	private static final class Key {
+		private final long _startVoxel;
+		private final long _goalVoxel;
+		private final double _startX, _startY, _startZ;
+		private final double _goalX, _goalY, _goalZ;
+
+		Key(PointInterface start, PointInterface goal) {
+			_startVoxel = VoxelKey.pack(start);
+			_goalVoxel = VoxelKey.pack(goal);
+			_startX = start.getX();
+			_startY = start.getY();
+			_startZ = start.getZ();
+			_goalX = goal.getX();
+			_goalY = goal.getY();
+			_goalZ = goal.getZ();
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(!(o instanceof Key)) {
+				return false;
+			}
+			Key other = (Key)o;
+			return _startVoxel == other._startVoxel && _goalVoxel == other._goalVoxel
+					&& _startX == other._startX && _startY == other._startY && _startZ == other._startZ
+					&& _goalX == other._goalX && _goalY == other._goalY && _goalZ == other._goalZ;
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = VoxelKey.hash(_startVoxel * 31 + _goalVoxel);
+			hash = 31 * hash + Double.hashCode(_startX - (long)_startX + _startY - (long)_startY + _startZ - (long)_startZ);
+			return 31 * hash + Double.hashCode(_goalX - (long)_goalX + _goalY - (long)_goalY + _goalZ - (long)_goalZ);
+		}
+	}
+}
@@ -0,0 +1,18 @@
+package algorithms.heuristics;
+
+import algorithms.trees.State;
+
+/**
+ * Heuristic that can compute the value of a child state from the value of its parent when a single agent moved
+ * (e.g. operator decomposition, where each step moves one agent)
+ */
+public interface IncrementalHeuristicInterface extends HeuristicInterface {
+	
+	/**
+	 * @param parent state whose heuristic value was already computed
+	 * @param child state reached by moving one agent of the parent
+	 * @param movedAgentId id of the agent that moved
+	 * @return heuristic value of the child
+	 */
+	public float calcHeuristic(State parent, State child, int movedAgentId);
+}
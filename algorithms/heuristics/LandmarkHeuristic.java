@@ -0,0 +1,74 @@
+package algorithms.heuristics;
+
+import algorithms.Astar.AStarState;
+import algorithms.trees.State;
+import geometry.coords.PointInterface;
+import geometry.coords.UTMCoord;
+import utils.GeneralUtils;
+
+/**
+ * ALT (A*, landmarks and triangle inequality) heuristic: for every landmark L, |d(L, goal) - d(L, voxel)| is a lower
+ * bound of the static distance between the voxel and the goal. The largest bound is used if it is above the diagonal
+ * distance. Distances come from a LandmarkTable computed offline, positions outside its box or not centered in their
+ * voxel get the diagonal distance. The goal voxel is the one the searches have to reach.
+ * The bound is admissible because the table holds distances over the whole static map, even for paths that leave its box.
+ * For OD*, give it to DiagonalDistanceHeuristicSOC as the heuristic of each agent.
+ */
+public class LandmarkHeuristic extends DiagonalDistanceHeuristic {
+
+	private final LandmarkTable _table;
+
+	public LandmarkHeuristic(LandmarkTable table) {
+		_table = table;
+	}
+
+	@Override
+	public float computeHeuristic(PointInterface start, PointInterface goal) {
+		float value = super.computeHeuristic(start, goal);
+		if(!GeneralUtils.isPositionInteger(start)) {
+			return value;
+		}
+		long startIndex = _table.indexOf((int)start.getX(), (int)start.getY(), (int)start.getZ(), ((UTMCoord)start).getZone());
+		long goalIndex = _table.indexOf((int)goal.getX(), (int)goal.getY(), (int)goal.getZ(), ((UTMCoord)goal).getZone());
+		return Math.max(value, landmarkBound(startIndex, goalIndex));
+	}
+	
+	/**
+	 * Diagonal distances of the batch, raised to the landmark bounds
+	 */
+	@Override
+	public void calcHeuristics(double[] x, double[] y, double[] z, int count, State goalNode, float[] values) {
+		super.calcHeuristics(x, y, z, count, goalNode, values);
+		PointInterface goal = ((AStarState)goalNode).getPosition();
+		int zone = ((UTMCoord)goal).getZone();
+		long goalIndex = _table.indexOf((int)goal.getX(), (int)goal.getY(), (int)goal.getZ(), zone);
+		for(int i = 0; i < count; i++) {
+			if(x[i] == (int)x[i] && y[i] == (int)y[i] && z[i] == (int)z[i]) {
+				values[i] = Math.max(values[i], landmarkBound(_table.indexOf((int)x[i], (int)y[i], (int)z[i], zone), goalIndex));
+			}
+		}
+	}
+	
+	/**
+	 * @return largest bound of the landmarks, 0 if a voxel is outside the table
+	 */
+	private float landmarkBound(long startIndex, long goalIndex) {
+		float value = 0;
+		if(startIndex < 0 || goalIndex < 0) {
+			return value;
+		}
+		for(int landmark = 0; landmark < _table.getNumLandmarks(); landmark++) {
+			float fromStart = _table.getDistance(startIndex, landmark);
+			float fromGoal = _table.getDistance(goalIndex, landmark);
+			// a landmark that cannot reach one of them gives no bound
+			if(fromStart != Float.POSITIVE_INFINITY && fromGoal != Float.POSITIVE_INFINITY) {
+				value = Math.max(value, Math.abs(fromGoal - fromStart));
+			}
+		}
+		return value;
+	}
+
+	public LandmarkTable getTable() {
+		return _table;
+	}
+}
@@ -0,0 +1,212 @@
+package algorithms.heuristics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import algorithms.Astar.VoxelKey;
+import geometry.coords.AgentPosition;
+import geometry.coords.PointInterface;
+import geometry.coords.UTMCoord;
+import map.Map;
+
+/**
+ * Distances from a few landmark voxels to every voxel of a box of the static map, for the ALT heuristic
+ * (see LandmarkHeuristic). Tables are computed offline with write and memory mapped with open, so a process only pays
+ * for the pages it reads.
+ *
+ * The distances are shortest paths over the whole static map reachable from the landmark, not only over the box: the
+ * box only limits the voxels stored. This keeps the landmark bounds admissible when the shortest path between two
+ * voxels of the box leaves it.
+ *
+ * File layout (little endian): magic, version, zone, latitude band, box origin (x, y, z), box size (x, y, z), number of
+ * landmarks, landmark voxels (x, y, z each), then one float per landmark for each voxel of the box, voxel after voxel
+ * in x, y, z order. Distances are over the whole static map (version 2, version 1 files stopped at the faces of the
+ * box and are rejected). Voxels a landmark cannot reach hold infinity.
+ */
+public class LandmarkTable {
+
+	private static final int MAGIC = 0x414c5431; //ALT1
+	private static final int VERSION = 2;
+	private static final int HEADER_INTS = 11;
+	private static final int CHUNK_FLOATS = 1 << 28; //floats per mapped buffer (1 GB)
+
+	private final int _zone;
+	private final int _x0, _y0, _z0;
+	private final int _sizeX, _sizeY, _sizeZ;
+	private final int _numLandmarks;
+	private final List<FloatBuffer> _chunks;
+
+	private LandmarkTable(int zone, int x0, int y0, int z0, int sizeX, int sizeY, int sizeZ, int numLandmarks, List<FloatBuffer> chunks) {
+		_zone = zone;
+		_x0 = x0;
+		_y0 = y0;
+		_z0 = z0;
+		_sizeX = sizeX;
+		_sizeY = sizeY;
+		_sizeZ = sizeZ;
+		_numLandmarks = numLandmarks;
+		_chunks = chunks;
+	}
+
+	/**
+	 * Maps a table file in memory
+	 */
+	public static LandmarkTable open(Path file) throws IOException {
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_INTS * 4).order(ByteOrder.LITTLE_ENDIAN);
+			readFully(channel, header, 0);
+			header.flip();
+			if(header.getInt() != MAGIC || header.getInt() != VERSION) {
+				throw new IOException("Not a landmark table: " + file);
+			}
+			int zone = header.getInt();
+			header.getInt(); //latitude band
+			int x0 = header.getInt(), y0 = header.getInt(), z0 = header.getInt();
+			int sizeX = header.getInt(), sizeY = header.getInt(), sizeZ = header.getInt();
+			int numLandmarks = header.getInt();
+			long offset = 4L * (HEADER_INTS + 3 * numLandmarks);
+			long floats = (long)sizeX * sizeY * sizeZ * numLandmarks;
+			if(channel.size() < offset + 4 * floats) {
+				throw new IOException("Truncated landmark table: " + file);
+			}
+			List<FloatBuffer> chunks = new ArrayList<FloatBuffer>();
+			for(long start = 0; start < floats; start += CHUNK_FLOATS) {
+				long count = Math.min(CHUNK_FLOATS, floats - start);
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset + 4 * start, 4 * count);
+				chunks.add(buffer.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer());
+			}
+			return new LandmarkTable(zone, x0, y0, z0, sizeX, sizeY, sizeZ, numLandmarks, chunks);
+		}
+	}
+
+	/**
+	 * Computes the distances from each landmark over the whole static map with a StaticDistanceTable and writes the ones
+	 * of the voxels of the box to the table file
+	 * @param origin lowest corner of the box
+	 */
+	public static void write(Path file, Map map, PointInterface origin, int sizeX, int sizeY, int sizeZ, List<PointInterface> landmarks,
+			double agentRadius) throws IOException {
+		int zone = ((UTMCoord)origin).getZone();
+		char band = ((UTMCoord)origin).getLatitudeBand();
+		int x0 = (int)origin.getX(), y0 = (int)origin.getY(), z0 = (int)origin.getZ();
+		List<StaticDistanceTable> tables = new ArrayList<StaticDistanceTable>();
+		for(PointInterface landmark : landmarks) {
+			tables.add(new StaticDistanceTable(map, landmark, agentRadius, Integer.MAX_VALUE));
+		}
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer header = ByteBuffer.allocate(4 * (HEADER_INTS + 3 * landmarks.size())).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(MAGIC).putInt(VERSION).putInt(zone).putInt(band);
+			header.putInt(x0).putInt(y0).putInt(z0).putInt(sizeX).putInt(sizeY).putInt(sizeZ).putInt(landmarks.size());
+			for(PointInterface landmark : landmarks) {
+				header.putInt((int)landmark.getX()).putInt((int)landmark.getY()).putInt((int)landmark.getZ());
+			}
+			header.flip();
+			writeFully(channel, header);
+			ByteBuffer row = ByteBuffer.allocate(4 * sizeZ * landmarks.size()).order(ByteOrder.LITTLE_ENDIAN);
+			for(int x = 0; x < sizeX; x++) {
+				for(int y = 0; y < sizeY; y++) {
+					row.clear();
+					for(int z = 0; z < sizeZ; z++) {
+						long key = VoxelKey.pack(x0 + x, y0 + y, z0 + z, zone);
+						for(StaticDistanceTable table : tables) {
+							row.putFloat(table.contains(key) ? table.getDistance(key) : Float.POSITIVE_INFINITY);
+						}
+					}
+					row.flip();
+					writeFully(channel, row);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Picks landmarks spread over the free voxels of the box: each new landmark is the voxel farthest from the ones
+	 * already picked
+	 * @param first free voxel of the box where the selection starts, it is not a landmark itself
+	 */
+	public static List<PointInterface> selectFarthestLandmarks(Map map, PointInterface first, PointInterface origin, int sizeX, int sizeY, int sizeZ,
+			int count, double agentRadius) {
+		int zone = ((UTMCoord)origin).getZone();
+		char band = ((UTMCoord)origin).getLatitudeBand();
+		int x0 = (int)origin.getX(), y0 = (int)origin.getY(), z0 = (int)origin.getZ();
+		List<PointInterface> landmarks = new ArrayList<PointInterface>();
+		List<StaticDistanceTable> tables = new ArrayList<StaticDistanceTable>();
+		tables.add(new StaticDistanceTable(map, first, agentRadius, Integer.MAX_VALUE));
+		while(landmarks.size() < count) {
+			PointInterface farthest = null;
+			float best = 0;
+			for(int x = x0; x < x0 + sizeX; x++) {
+				for(int y = y0; y < y0 + sizeY; y++) {
+					for(int z = z0; z < z0 + sizeZ; z++) {
+						long key = VoxelKey.pack(x, y, z, zone);
+						float distance = Float.MAX_VALUE;
+						for(StaticDistanceTable table : tables) {
+							distance = table.contains(key) ? Math.min(distance, table.getDistance(key)) : 0;
+						}
+						if(distance > best) {
+							best = distance;
+							farthest = new AgentPosition(x, y, z, -1, -1, zone, band);
+						}
+					}
+				}
+			}
+			if(farthest == null) {
+				break;
+			}
+			landmarks.add(farthest);
+			if(landmarks.size() == 1) {
+				tables.clear();
+			}
+			tables.add(new StaticDistanceTable(map, farthest, agentRadius, Integer.MAX_VALUE));
+		}
+		return landmarks;
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while(buffer.hasRemaining()) {
+			if(channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Unexpected end of landmark table");
+			}
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while(buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * @return index of the first distance of the voxel, -1 if it is outside the box
+	 */
+	public long indexOf(int x, int y, int z, int zone) {
+		x -= _x0;
+		y -= _y0;
+		z -= _z0;
+		if(zone != _zone || x < 0 || y < 0 || z < 0 || x >= _sizeX || y >= _sizeY || z >= _sizeZ) {
+			return -1;
+		}
+		return (((long)x * _sizeY + y) * _sizeZ + z) * _numLandmarks;
+	}
+
+	/**
+	 * @param index index of the voxel, see indexOf
+	 * @return distance between the landmark and the voxel
+	 */
+	public float getDistance(long index, int landmark) {
+		long position = index + landmark;
+		return _chunks.get((int)(position / CHUNK_FLOATS)).get((int)(position % CHUNK_FLOATS));
+	}
+
+	public int getNumLandmarks() {
+		return _numLandmarks;
+	}
+}
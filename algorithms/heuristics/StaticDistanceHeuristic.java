@@ -0,0 +1,75 @@
+package algorithms.heuristics;
+
+import java.util.function.BooleanSupplier;
+
+import algorithms.Astar.AStarState;
+import algorithms.Astar.VoxelKey;
+import algorithms.trees.State;
+import geometry.coords.PointInterface;
+import geometry.coords.UTMCoord;
+import utils.GeneralUtils;
+import utils.Utils;
+
+/**
+ * Exact distance to the goal over the static map of a run, read from a StaticDistanceTable of its DistanceTableCache.
+ * The value is never below the one of the base heuristic, which is also used for positions that are not centered in
+ * their voxel.
+ * The table of a goal is built by the first search that needs it, which can stop the build (see
+ * DistanceTableCache.getTable).
+ */
+public class StaticDistanceHeuristic implements HeuristicInterface {
+
+	private DistanceTableCache _tables;
+	private double _agentRadius;
+	private HeuristicInterface _base;
+	private BooleanSupplier _stop;
+	private StaticDistanceTable _table; //table of the last goal
+	private PointInterface _goal;
+
+	/**
+	 * @param tables tables of the run the search belongs to
+	 * @param base heuristic used as a lower bound
+	 */
+	public StaticDistanceHeuristic(DistanceTableCache tables, double agentRadius, HeuristicInterface base) {
+		this(tables, agentRadius, base, null);
+	}
+
+	/**
+	 * @param stop stop check of the search that uses the heuristic, can be null
+	 */
+	public StaticDistanceHeuristic(DistanceTableCache tables, double agentRadius, HeuristicInterface base, BooleanSupplier stop) {
+		_tables = tables;
+		_agentRadius = agentRadius;
+		_base = base;
+		_stop = stop;
+	}
+
+	@Override
+	public float calcHeuristic(State current, State goal) {
+		float value = _base.calcHeuristic(current, goal);
+		PointInterface position = ((AStarState)current).getPosition();
+		if(!GeneralUtils.isPositionInteger(position)) {
+			return value;
+		}
+		return Math.max(value, getTable(((AStarState)goal).getPosition()).getDistance(((AStarState)current).getKey()));
+	}
+
+	private StaticDistanceTable getTable(PointInterface goal) {
+		if(_table == null || goal != _goal) {
+			UTMCoord goalVoxel = (UTMCoord) Utils.convertPositionToVoxel((UTMCoord)goal);
+			if(_table == null || _table.getGoalKey() != VoxelKey.pack(goalVoxel) || _table.isStopped()) {
+				_table = _tables.getTable(goalVoxel, _agentRadius, _stop);
+			}
+			_goal = goal;
+		}
+		return _table;
+	}
+
+	public HeuristicInterface getBase() {
+		return _base;
+	}
+
+	public DistanceTableCache getTables() {
+		return _tables;
+	}
+}
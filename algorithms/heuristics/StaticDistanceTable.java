@@ -0,0 +1,169 @@
+package algorithms.heuristics;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+import algorithms.Astar.VoxelKey;
+import algorithms.Astar.ODStar.Move;
+import algorithms.collections.FloatIntHeap;
+import algorithms.collections.LongIntHashMap;
+import geometry.coords.AgentPosition;
+import geometry.coords.PointInterface;
+import geometry.coords.UTMCoord;
+import map.Map;
+
+/**
+ * Exact distances to one goal voxel over the static map, computed with a Dijkstra search backwards from the goal over
+ * the 26 voxel neighborhood (moves are symmetric, so the distance from the goal is the distance to it).
+ * Only Map.inMap is queried, agent obstacles are ignored, so the table holds for every low level search of a run.
+ * Distances are kept in a float array indexed by a LongIntHashMap from voxel key. The search stops after a maximum
+ * number of voxels, or when the low level search that builds the table is stopped: the voxels left out are at least as
+ * far as the last settled one, so the table is still a lower bound.
+ * A table of the default size takes about 5 MB.
+ */
+public class StaticDistanceTable {
+
+	public static final int DEFAULT_MAX_VOXELS = 1 << 16;
+
+	private final LongIntHashMap _index;
+	private float[] _distances;
+	private boolean[] _settled; //false for the voxels still open when the search stopped, their distance is not exact
+	private int _size;
+	private float _bound; //lower bound of the distance of the voxels that are not in the table
+	private final long _goalKey;
+	private boolean _stopped;
+
+	/**
+	 * @param map only used for Map.inMap
+	 * @param goal voxel of the goal
+	 * @param agentRadius passed to Map.inMap
+	 * @param maxVoxels maximum number of voxels settled
+	 */
+	public StaticDistanceTable(Map map, PointInterface goal, double agentRadius, int maxVoxels) {
+		this(map, goal, agentRadius, maxVoxels, null);
+	}
+
+	/**
+	 * @param stop checked before each voxel is settled, e.g. BFSearch.isSearchStopped of the search that needs the table.
+	 * Can be null
+	 */
+	public StaticDistanceTable(Map map, PointInterface goal, double agentRadius, int maxVoxels, BooleanSupplier stop) {
+		_index = new LongIntHashMap(1024, -1);
+		_distances = new float[1024];
+		_size = 0;
+		_bound = 0;
+		_goalKey = VoxelKey.pack(goal);
+		_stopped = false;
+		compute(map, goal, agentRadius, maxVoxels, stop);
+	}
+
+	private void compute(Map map, PointInterface goal, double agentRadius, int maxVoxels, BooleanSupplier stop) {
+		int zone = ((UTMCoord)goal).getZone();
+		char band = ((UTMCoord)goal).getLatitudeBand();
+		//coordinates of the voxels by record, the keys wrap around so they cannot be unpacked
+		int[] coords = new int[3 * 1024];
+		_settled = new boolean[1024];
+		FloatIntHeap open = new FloatIntHeap();
+		int root = record(_goalKey, 0);
+		coords[0] = (int)goal.getX();
+		coords[1] = (int)goal.getY();
+		coords[2] = (int)goal.getZ();
+		open.push(0, root);
+		int numSettled = 0;
+		while(!open.isEmpty()) {
+			float distance = open.peekKey();
+			int current = open.pop();
+			if(_settled[current] || distance > _distances[current]) {
+				continue;
+			}
+			if(numSettled == maxVoxels) {
+				_bound = distance;
+				return;
+			}
+			if(stop != null && stop.getAsBoolean()) {
+				_bound = distance;
+				_stopped = true;
+				return;
+			}
+			_settled[current] = true;
+			numSettled++;
+			int x = coords[3 * current];
+			int y = coords[3 * current + 1];
+			int z = coords[3 * current + 2];
+			for(Move move : Move.NEIGHBORHOOD) {
+				if(move == Move.W) {
+					continue;
+				}
+				int nx = x + move.getDx();
+				int ny = y + move.getDy();
+				int nz = z + move.getDz();
+				long key = VoxelKey.pack(nx, ny, nz, zone);
+				int neighbor = _index.get(key);
+				float newDistance = distance + (float)move.getDistance();
+				if(neighbor >= 0) {
+					if(!_settled[neighbor] && newDistance < _distances[neighbor]) {
+						_distances[neighbor] = newDistance;
+						open.push(newDistance, neighbor);
+					}
+					continue;
+				}
+				if(!map.inMap(new AgentPosition(nx, ny, nz, -1, -1, zone, band), goal, agentRadius)) {
+					continue;
+				}
+				neighbor = record(key, newDistance);
+				if(3 * neighbor + 2 >= coords.length) {
+					coords = Arrays.copyOf(coords, coords.length << 1);
+					_settled = Arrays.copyOf(_settled, _settled.length << 1);
+				}
+				coords[3 * neighbor] = nx;
+				coords[3 * neighbor + 1] = ny;
+				coords[3 * neighbor + 2] = nz;
+				open.push(newDistance, neighbor);
+			}
+		}
+	}
+
+	private int record(long key, float distance) {
+		if(_size == _distances.length) {
+			_distances = Arrays.copyOf(_distances, _size << 1);
+		}
+		_index.put(key, _size);
+		_distances[_size] = distance;
+		return _size++;
+	}
+
+	/**
+	 * @return exact static distance from the voxel to the goal, or a lower bound of it if the voxel was not reached
+	 * (0 if the whole reachable map was searched: the voxel cannot reach the goal)
+	 */
+	public float getDistance(long voxelKey) {
+		int record = _index.get(voxelKey);
+		return record < 0 || !_settled[record] ? _bound : _distances[record];
+	}
+
+	/**
+	 * @return true if the distance of the voxel is exact
+	 */
+	public boolean contains(long voxelKey) {
+		int record = _index.get(voxelKey);
+		return record >= 0 && _settled[record];
+	}
+
+	/**
+	 * @return true if the build was stopped before reaching the maximum number of voxels
+	 */
+	public boolean isStopped() {
+		return _stopped;
+	}
+
+	public long getGoalKey() {
+		return _goalKey;
+	}
+
+	/**
+	 * @return number of voxels in the table
+	 */
+	public int size() {
+		return _size;
+	}
+}
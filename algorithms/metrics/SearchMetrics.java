@@ -0,0 +1,190 @@
+package algorithms.metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Performance counters of one findPath call, filled by BFSearch and its subclasses.
+ * Counters are always updated. Timers (expansion, move validation, heuristic and goal checks) read the clock, so they are
+ * only enabled when a listener is registered at the time the search starts.
+ * When a threaded search is forced to stop, the metrics are published while the search thread may still be finishing.
+ */
+public class SearchMetrics {
+	
+	private static final List<SearchMetricsListener> _listeners = new CopyOnWriteArrayList<SearchMetricsListener>();
+	
+	private final String _algorithmName;
+	private final boolean _timing;
+	private long _expansions;
+	private long _generations;
+	private long _duplicatesPruned;
+	private int _peakOpenSize;
+	private int _peakClosedSize;
+	private long _expandTime;
+	private long _moveValidationTime;
+	private long _heuristicTime;
+	private long _goalCheckTime;
+	private boolean _timedOut;
+	private double _duration;
+	
+	public SearchMetrics(String algorithmName) {
+		_algorithmName = algorithmName;
+		_timing = !_listeners.isEmpty();
+	}
+	
+	public static void addListener(SearchMetricsListener listener) {
+		_listeners.add(listener);
+	}
+	
+	public static void removeListener(SearchMetricsListener listener) {
+		_listeners.remove(listener);
+	}
+	
+	/**
+	 * Sends the metrics of a finished search to all listeners
+	 */
+	public static void publish(SearchMetrics metrics) {
+		for(SearchMetricsListener listener : _listeners) {
+			listener.searchFinished(metrics);
+		}
+	}
+	
+	/**
+	 * @return start time to pass to one of the add*Time methods, 0 if timers are disabled
+	 */
+	public long startTimer() {
+		return _timing ? System.nanoTime() : 0;
+	}
+	
+	public void addExpandTime(long start) {
+		if(_timing) {
+			_expandTime += System.nanoTime() - start;
+		}
+	}
+	
+	public void addMoveValidationTime(long start) {
+		if(_timing) {
+			_moveValidationTime += System.nanoTime() - start;
+		}
+	}
+	
+	public void addHeuristicTime(long start) {
+		if(_timing) {
+			_heuristicTime += System.nanoTime() - start;
+		}
+	}
+	
+	public void addGoalCheckTime(long start) {
+		if(_timing) {
+			_goalCheckTime += System.nanoTime() - start;
+		}
+	}
+	
+	public void nodeExpanded() {
+		_expansions++;
+	}
+	
+	/**
+	 * @param openSize size of the open list after the node was added
+	 */
+	public void nodeGenerated(int openSize) {
+		_generations++;
+		_peakOpenSize = Math.max(_peakOpenSize, openSize);
+	}
+	
+	public void duplicatePruned() {
+		_duplicatesPruned++;
+	}
+	
+	public void nodeClosed(int closedSize) {
+		_peakClosedSize = Math.max(_peakClosedSize, closedSize);
+	}
+	
+	/**
+	 * @param duration in milliseconds
+	 * @param timedOut
+	 */
+	public void finish(double duration, boolean timedOut) {
+		_duration = duration;
+		_timedOut = timedOut;
+	}
+	
+	@Override
+	public String toString() {
+		return _algorithmName + ": duration " + _duration + " ms; timeout " + _timedOut + "; expanded " + _expansions 
+				+ "; generated " + _generations + "; duplicates pruned " + _duplicatesPruned + "; peak open " + _peakOpenSize 
+				+ "; peak closed " + _peakClosedSize + "; expand " + _expandTime / 1e6 + " ms; move validation " + _moveValidationTime / 1e6 
+				+ " ms; heuristic " + _heuristicTime / 1e6 + " ms; goal checks " + _goalCheckTime / 1e6 + " ms";
+	}
+
+	/***********************************************************/
+	/* Getters												   */
+	/***********************************************************/
+	
+	public String getAlgorithmName() {
+		return _algorithmName;
+	}
+	
+	public boolean isTimingEnabled() {
+		return _timing;
+	}
+
+	public long getExpansions() {
+		return _expansions;
+	}
+
+	public long getGenerations() {
+		return _generations;
+	}
+
+	public long getDuplicatesPruned() {
+		return _duplicatesPruned;
+	}
+
+	public int getPeakOpenSize() {
+		return _peakOpenSize;
+	}
+
+	public int getPeakClosedSize() {
+		return _peakClosedSize;
+	}
+
+	/**
+	 * @return nanoseconds spent in expandNode
+	 */
+	public long getExpandTime() {
+		return _expandTime;
+	}
+
+	/**
+	 * @return nanoseconds spent in Map.isMoveValid
+	 */
+	public long getMoveValidationTime() {
+		return _moveValidationTime;
+	}
+
+	/**
+	 * @return nanoseconds spent computing heuristic values
+	 */
+	public long getHeuristicTime() {
+		return _heuristicTime;
+	}
+
+	/**
+	 * @return nanoseconds spent in goal checks
+	 */
+	public long getGoalCheckTime() {
+		return _goalCheckTime;
+	}
+
+	public boolean isTimedOut() {
+		return _timedOut;
+	}
+
+	/**
+	 * @return milliseconds spent in findPath
+	 */
+	public double getDuration() {
+		return _duration;
+	}
+}
@@ -0,0 +1,8 @@
+package algorithms.metrics;
+
+/**
+ * Receives the metrics of every search when its findPath returns, nested searches included
+ */
+public interface SearchMetricsListener {
+	public void searchFinished(SearchMetrics metrics);
+}
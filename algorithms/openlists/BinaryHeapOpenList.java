@@ -0,0 +1,58 @@
+package algorithms.openlists;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/**
+ * Plain binary heap. Cheapest option when only the best element is ever needed.
+ */
+public class BinaryHeapOpenList<E> implements OpenList<E> {
+	
+	private PriorityQueue<E> _queue;
+	
+	public BinaryHeapOpenList(Comparator<? super E> comparator) {
+		_queue = new PriorityQueue<E>(comparator);
+	}
+
+	@Override
+	public boolean add(E element) {
+		return _queue.add(element);
+	}
+
+	@Override
+	public E poll() {
+		return _queue.poll();
+	}
+
+	@Override
+	public E peek() {
+		return _queue.peek();
+	}
+
+	@Override
+	public boolean remove(Object element) {
+		return _queue.remove(element);
+	}
+
+	@Override
+	public boolean contains(Object element) {
+		return _queue.contains(element);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return _queue.isEmpty();
+	}
+
+	@Override
+	public int size() {
+		return _queue.size();
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return _queue.iterator();
+	}
+
+}
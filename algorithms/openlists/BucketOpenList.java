@@ -0,0 +1,133 @@
+package algorithms.openlists;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.ToIntFunction;
+
+/**
+ * Bucket queue for small non-negative integer keys (e.g. number of conflicts). Insertion is O(1) and polling only scans
+ * buckets forward from the current minimum. Elements with the same key are returned in insertion order.
+ */
+public class BucketOpenList<E> implements OpenList<E> {
+	
+	private ToIntFunction<? super E> _key;
+	private List<ArrayDeque<E>> _buckets;
+	private int _minBucket;
+	private int _size;
+	
+	public BucketOpenList(ToIntFunction<? super E> key) {
+		_key = key;
+		_buckets = new ArrayList<ArrayDeque<E>>();
+		_minBucket = 0;
+		_size = 0;
+	}
+
+	@Override
+	public boolean add(E element) {
+		int key = _key.applyAsInt(element);
+		if(key < 0) {
+			throw new IllegalArgumentException("Bucket open list only accepts non-negative keys: " + key);
+		}
+		while(_buckets.size() <= key) {
+			_buckets.add(new ArrayDeque<E>());
+		}
+		_buckets.get(key).add(element);
+		_minBucket = Math.min(_minBucket, key);
+		_size++;
+		return true;
+	}
+
+	@Override
+	public E poll() {
+		if(_size == 0) {
+			return null;
+		}
+		_size--;
+		return firstBucket().poll();
+	}
+
+	@Override
+	public E peek() {
+		if(_size == 0) {
+			return null;
+		}
+		return firstBucket().peek();
+	}
+	
+	/**
+	 * Moves the minimum forward to the first non empty bucket. Only called when the list is not empty.
+	 */
+	private ArrayDeque<E> firstBucket() {
+		while(_buckets.get(_minBucket).isEmpty()) {
+			_minBucket++;
+		}
+		return _buckets.get(_minBucket);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean remove(Object element) {
+		ArrayDeque<E> bucket = bucketOf((E) element);
+		if(bucket != null && bucket.remove(element)) {
+			_size--;
+			return true;
+		}
+		return false;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean contains(Object element) {
+		ArrayDeque<E> bucket = bucketOf((E) element);
+		return bucket != null && bucket.contains(element);
+	}
+	
+	private ArrayDeque<E> bucketOf(E element) {
+		int key = _key.applyAsInt(element);
+		if(key < 0 || key >= _buckets.size()) {
+			return null;
+		}
+		return _buckets.get(key);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return _size == 0;
+	}
+
+	@Override
+	public int size() {
+		return _size;
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+			private int _bucket = _minBucket;
+			private Iterator<E> _current = null;
+
+			@Override
+			public boolean hasNext() {
+				while(_current == null || !_current.hasNext()) {
+					if(_bucket >= _buckets.size()) {
+						return false;
+					}
+					_current = _buckets.get(_bucket++).iterator();
+				}
+				return true;
+			}
+
+			@Override
+			public E next() {
+				if(!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return _current.next();
+			}
+		};
+	}
+
+}
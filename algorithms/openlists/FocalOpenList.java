@@ -0,0 +1,165 @@
+package algorithms.openlists;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import algorithms.trees.Node;
+
+/**
+ * Open and focal lists of a focal search in one container. The open side is the LowerBoundOpenList, the focal side is a binary
+ * heap ordered by the focal comparator. Both sides share the node handle, which keeps the position of the node in the heap,
+ * so polling the focal list removes the node from the open side in O(log n), and removing it from the open side takes it out
+ * of the focal heap in O(log n). No equals calls are needed on either side.
+ */
+public class FocalOpenList extends LowerBoundOpenList {
+
+	private Comparator<Node> _focalComparator;
+	private Handle[] _focal;
+	private int _focalSize;
+
+	public FocalOpenList(Comparator<Node> focalComparator) {
+		super();
+		_focalComparator = focalComparator;
+		_focal = new Handle[64];
+		_focalSize = 0;
+	}
+
+	/**
+	 * @param node must already be in the open list
+	 * @return true if the node was added, false if it is not open or already in the focal list
+	 */
+	public boolean addToFocal(Node node) {
+		Handle handle = getHandle(node);
+		if(handle == null || handle._focalIndex >= 0) {
+			return false;
+		}
+		if(_focalSize == _focal.length) {
+			_focal = Arrays.copyOf(_focal, _focalSize * 2);
+		}
+		_focal[_focalSize] = handle;
+		handle._focalIndex = _focalSize;
+		siftUp(_focalSize++);
+		return true;
+	}
+
+	/**
+	 * Adds to the focal list all open nodes with a lower bound in (low, high]
+	 * @return number of nodes added
+	 */
+	public int addToFocal(double low, double high) {
+		int added = 0;
+		for(Node node : between(low, high)) {
+			if(addToFocal(node)) {
+				added++;
+			}
+		}
+		return added;
+	}
+
+	/**
+	 * Removes the best focal node from both lists
+	 */
+	public Node pollFocal() {
+		if(_focalSize == 0) {
+			return null;
+		}
+		Node node = _focal[0]._node;
+		remove(node);
+		return node;
+	}
+
+	public Node peekFocal() {
+		return _focalSize == 0 ? null : _focal[0]._node;
+	}
+
+	public boolean isFocalEmpty() {
+		return _focalSize == 0;
+	}
+
+	public int focalSize() {
+		return _focalSize;
+	}
+
+	public Iterable<Node> getFocalNodes() {
+		return () -> new Iterator<Node>() {
+			private int _next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return _next < _focalSize;
+			}
+
+			@Override
+			public Node next() {
+				if(!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return _focal[_next++]._node;
+			}
+		};
+	}
+
+	@Override
+	protected void removed(Handle handle) {
+		if(handle._focalIndex >= 0) {
+			removeFocalAt(handle._focalIndex);
+		}
+	}
+
+	private void removeFocalAt(int index) {
+		_focal[index]._focalIndex = -1;
+		_focalSize--;
+		if(index == _focalSize) {
+			_focal[_focalSize] = null;
+			return;
+		}
+		_focal[index] = _focal[_focalSize];
+		_focal[index]._focalIndex = index;
+		_focal[_focalSize] = null;
+		if(!siftUp(index)) {
+			siftDown(index);
+		}
+	}
+
+	/**
+	 * @return true if the handle moved
+	 */
+	private boolean siftUp(int index) {
+		Handle handle = _focal[index];
+		int start = index;
+		while(index > 0) {
+			int parent = (index - 1) >>> 1;
+			if(_focalComparator.compare(handle._node, _focal[parent]._node) >= 0) {
+				break;
+			}
+			_focal[index] = _focal[parent];
+			_focal[index]._focalIndex = index;
+			index = parent;
+		}
+		_focal[index] = handle;
+		handle._focalIndex = index;
+		return index != start;
+	}
+
+	private void siftDown(int index) {
+		Handle handle = _focal[index];
+		int half = _focalSize >>> 1;
+		while(index < half) {
+			int child = 2 * index + 1;
+			if(child + 1 < _focalSize && _focalComparator.compare(_focal[child + 1]._node, _focal[child]._node) < 0) {
+				child++;
+			}
+			if(_focalComparator.compare(handle._node, _focal[child]._node) <= 0) {
+				break;
+			}
+			_focal[index] = _focal[child];
+			_focal[index]._focalIndex = index;
+			index = child;
+		}
+		_focal[index] = handle;
+		handle._focalIndex = index;
+	}
+
+}
@@ -0,0 +1,187 @@
+package algorithms.openlists;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import algorithms.trees.Node;
+
+/**
+ * Addressable binary heap of nodes. Each node keeps its position in the heap (Node.getHeapIndex), which is its handle:
+ * a better path to a node that is still open replaces it in place (decrease key), so the open list holds no stale duplicates.
+ * A node can only be in one indexed heap at a time.
+ */
+public class IndexedHeapOpenList implements OpenList<Node> {
+
+	private Comparator<Node> _comparator;
+	private Node[] _heap;
+	private int _size;
+
+	public IndexedHeapOpenList(Comparator<Node> comparator) {
+		_comparator = comparator;
+		_heap = new Node[64];
+		_size = 0;
+	}
+
+	@Override
+	public boolean add(Node node) {
+		if(_size == _heap.length) {
+			_heap = Arrays.copyOf(_heap, _size * 2);
+		}
+		_heap[_size] = node;
+		node.setHeapIndex(_size);
+		siftUp(_size++);
+		return true;
+	}
+
+	@Override
+	public Node poll() {
+		if(_size == 0) {
+			return null;
+		}
+		Node first = _heap[0];
+		removeAt(0);
+		return first;
+	}
+
+	@Override
+	public Node peek() {
+		return _size == 0 ? null : _heap[0];
+	}
+
+	@Override
+	public boolean replace(Node previous, Node node) {
+		if(!isInHeap(previous)) {
+			return false;
+		}
+		int index = previous.getHeapIndex();
+		previous.setHeapIndex(-1);
+		_heap[index] = node;
+		node.setHeapIndex(index);
+		if(!siftUp(index)) {
+			siftDown(index);
+		}
+		return true;
+	}
+
+	@Override
+	public boolean remove(Object element) {
+		int index = indexOf(element);
+		if(index < 0) {
+			return false;
+		}
+		removeAt(index);
+		return true;
+	}
+
+	@Override
+	public boolean contains(Object element) {
+		return indexOf(element) >= 0;
+	}
+
+	/**
+	 * The handle is used when the element is the node in the heap, otherwise falls back to equality like the other lists
+	 */
+	private int indexOf(Object element) {
+		if(element instanceof Node && isInHeap((Node) element)) {
+			return ((Node) element).getHeapIndex();
+		}
+		for(int i = 0; i < _size; i++) {
+			if(_heap[i].equals(element)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private boolean isInHeap(Node node) {
+		int index = node.getHeapIndex();
+		return index >= 0 && index < _size && _heap[index] == node;
+	}
+
+	private void removeAt(int index) {
+		_heap[index].setHeapIndex(-1);
+		_size--;
+		if(index == _size) {
+			_heap[_size] = null;
+			return;
+		}
+		_heap[index] = _heap[_size];
+		_heap[index].setHeapIndex(index);
+		_heap[_size] = null;
+		if(!siftUp(index)) {
+			siftDown(index);
+		}
+	}
+
+	/**
+	 * @return true if the node moved
+	 */
+	private boolean siftUp(int index) {
+		Node node = _heap[index];
+		int start = index;
+		while(index > 0) {
+			int parent = (index - 1) >>> 1;
+			if(_comparator.compare(node, _heap[parent]) >= 0) {
+				break;
+			}
+			_heap[index] = _heap[parent];
+			_heap[index].setHeapIndex(index);
+			index = parent;
+		}
+		_heap[index] = node;
+		node.setHeapIndex(index);
+		return index != start;
+	}
+
+	private void siftDown(int index) {
+		Node node = _heap[index];
+		int half = _size >>> 1;
+		while(index < half) {
+			int child = 2 * index + 1;
+			if(child + 1 < _size && _comparator.compare(_heap[child + 1], _heap[child]) < 0) {
+				child++;
+			}
+			if(_comparator.compare(node, _heap[child]) <= 0) {
+				break;
+			}
+			_heap[index] = _heap[child];
+			_heap[index].setHeapIndex(index);
+			index = child;
+		}
+		_heap[index] = node;
+		node.setHeapIndex(index);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return _size == 0;
+	}
+
+	@Override
+	public int size() {
+		return _size;
+	}
+
+	@Override
+	public Iterator<Node> iterator() {
+		return new Iterator<Node>() {
+			private int _next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return _next < _size;
+			}
+
+			@Override
+			public Node next() {
+				if(!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return _heap[_next++];
+			}
+		};
+	}
+
+}
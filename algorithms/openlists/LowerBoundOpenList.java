@@ -0,0 +1,155 @@
+package algorithms.openlists;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import algorithms.trees.Node;
+
+/**
+ * Open list for focal searches, kept in a balanced tree ordered by the lower bound of the states (FIFO among equal bounds).
+ * When the minimum lower bound rises, the nodes that enter the focal band are found with a range query instead of a scan
+ * of the whole list. Nodes are located by identity, so removing the node polled from the focal list is O(log n) and
+ * never calls equals.
+ */
+public class LowerBoundOpenList implements OpenList<Node> {
+
+	private TreeMap<Handle, Node> _tree;
+	private IdentityHashMap<Node, Handle> _handles;
+	private long _sequence;
+
+	public LowerBoundOpenList() {
+		_tree = new TreeMap<Handle, Node>();
+		_handles = new IdentityHashMap<Node, Handle>();
+		_sequence = 0;
+	}
+
+	@Override
+	public boolean add(Node node) {
+		if(_handles.containsKey(node)) {
+			return false;
+		}
+		Handle handle = new Handle(node, node.getState().getLowerBound(), _sequence++);
+		_tree.put(handle, node);
+		_handles.put(node, handle);
+		return true;
+	}
+
+	@Override
+	public Node poll() {
+		Map.Entry<Handle, Node> first = _tree.pollFirstEntry();
+		if(first == null) {
+			return null;
+		}
+		_handles.remove(first.getValue());
+		removed(first.getKey());
+		return first.getValue();
+	}
+
+	@Override
+	public Node peek() {
+		Map.Entry<Handle, Node> first = _tree.firstEntry();
+		return first == null ? null : first.getValue();
+	}
+	
+	/**
+	 * @return the handle of a node in the list, null if the node is not in it
+	 */
+	protected Handle getHandle(Node node) {
+		return _handles.get(node);
+	}
+	
+	/**
+	 * Called after a node left the list
+	 */
+	protected void removed(Handle handle) {
+		//
+	}
+
+	/**
+	 * @return open nodes whose lower bound is in (low, high], in increasing order. The collection is a view of the list
+	 */
+	public Collection<Node> between(double low, double high) {
+		if(high <= low) {
+			return Collections.emptyList();
+		}
+		return _tree.subMap(new Handle(null, low, Long.MAX_VALUE), false, new Handle(null, high, Long.MAX_VALUE), true).values();
+	}
+
+	@Override
+	public boolean remove(Object element) {
+		Node node = find(element);
+		if(node == null) {
+			return false;
+		}
+		Handle handle = _handles.remove(node);
+		_tree.remove(handle);
+		removed(handle);
+		return true;
+	}
+
+	@Override
+	public boolean contains(Object element) {
+		return find(element) != null;
+	}
+
+	/**
+	 * Looks the node up by identity first and falls back to equality like the other lists
+	 */
+	private Node find(Object element) {
+		if(_handles.containsKey(element)) {
+			return (Node) element;
+		}
+		for(Node node : _tree.values()) {
+			if(node.equals(element)) {
+				return node;
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return _tree.isEmpty();
+	}
+
+	@Override
+	public int size() {
+		return _tree.size();
+	}
+
+	@Override
+	public Iterator<Node> iterator() {
+		return _tree.values().iterator();
+	}
+
+	/**
+	 * Position of a node in the list. Subclasses can keep other positions of the same node here (e.g. in a focal heap)
+	 */
+	protected static class Handle implements Comparable<Handle> {
+		final Node _node;
+		final double _lowerBound;
+		final long _sequence;
+		int _focalIndex;
+
+		Handle(Node node, double lowerBound, long sequence) {
+			_node = node;
+			_lowerBound = lowerBound;
+			_sequence = sequence;
+			_focalIndex = -1;
+		}
+
+		@Override
+		public int compareTo(Handle other) {
+			int result = Double.compare(_lowerBound, other._lowerBound);
+			if(result != 0) {
+				return result;
+			}
+			return Long.compare(_sequence, other._sequence);
+		}
+	}
+
+}
@@ -0,0 +1,67 @@
+package algorithms.openlists;
+
+import java.util.Comparator;
+import java.util.Iterator;
+
+import com.google.common.collect.MinMaxPriorityQueue;
+
+/**
+ * Min-max heap, for searches that also need to remove the worst element (e.g. SMA* when it runs out of memory).
+ */
+public class MinMaxHeapOpenList<E> implements OpenList<E> {
+	
+	private MinMaxPriorityQueue<E> _queue;
+	
+	public MinMaxHeapOpenList(Comparator<? super E> comparator) {
+		_queue = MinMaxPriorityQueue.orderedBy(comparator).create();
+	}
+
+	@Override
+	public boolean add(E element) {
+		return _queue.add(element);
+	}
+
+	@Override
+	public E poll() {
+		return _queue.poll();
+	}
+
+	@Override
+	public E peek() {
+		return _queue.peek();
+	}
+	
+	public E pollLast() {
+		return _queue.pollLast();
+	}
+	
+	public E peekLast() {
+		return _queue.peekLast();
+	}
+
+	@Override
+	public boolean remove(Object element) {
+		return _queue.remove(element);
+	}
+
+	@Override
+	public boolean contains(Object element) {
+		return _queue.contains(element);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return _queue.isEmpty();
+	}
+
+	@Override
+	public int size() {
+		return _queue.size();
+	}
+
+	@Override
+	public Iterator<E> iterator() {
+		return _queue.iterator();
+	}
+
+}
@@ -0,0 +1,240 @@
+package algorithms.openlists;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import algorithms.trees.Node;
+
+/**
+ * Open list for A* on the voxel grid. F values of neighbors are close to the f value of the node being expanded, so nodes are
+ * spread over buckets of fixed width in f and the minimum bucket only moves forward while the search is monotone. Each bucket
+ * is a small heap ordered by the open comparator, which keeps the exact order of FValueComparator (lowest f, then highest g).
+ * Insertions below the current minimum (non consistent heuristics) are accepted, they only move the minimum back.
+ * The buckets span at most MAX_BUCKETS keys and the ones before the minimum are dropped as it moves forward. Nodes with an
+ * f value out of that span, or not finite (e.g. infinite g), go to an overflow heap ordered by the same comparator.
+ */
+public class MonotoneBucketOpenList implements OpenList<Node> {
+
+	private static final int MAX_BUCKETS = 1 << 16;
+	private static final int COMPACT_THRESHOLD = 64; //empty buckets before the minimum that are kept
+
+	private Comparator<Node> _comparator;
+	private double _width;
+	private List<PriorityQueue<Node>> _buckets;
+	private PriorityQueue<Node> _overflow;
+	private long _offset; //key of the first bucket
+	private int _minBucket;
+	private int _size;
+	private int _bucketed; //nodes in the buckets, the rest are in the overflow heap
+
+	/**
+	 * @param comparator order inside a bucket
+	 * @param width range of f values covered by each bucket
+	 */
+	public MonotoneBucketOpenList(Comparator<Node> comparator, double width) {
+		if(width <= 0) {
+			throw new IllegalArgumentException("Bucket width must be positive: " + width);
+		}
+		_comparator = comparator;
+		_width = width;
+		_buckets = new ArrayList<PriorityQueue<Node>>();
+		_overflow = new PriorityQueue<Node>(comparator);
+		_offset = 0;
+		_minBucket = 0;
+		_size = 0;
+		_bucketed = 0;
+	}
+
+	/**
+	 * @return key of the bucket, NaN if the f value is not finite
+	 */
+	private double key(Node node) {
+		return Math.floor(node.getState().getFVal() / _width);
+	}
+
+	/**
+	 * @return true if a bucket for the key fits in the span of the buckets, prepending the missing ones if needed
+	 */
+	private boolean inSpan(double key) {
+		if(Double.isNaN(key) || Double.isInfinite(key) || Math.abs(key) >= Long.MAX_VALUE / 2) {
+			return false;
+		}
+		if(_bucketed == 0) {
+			return true;
+		}
+		double first = Math.min(key, _offset + _minBucket);
+		double last = Math.max(key, _offset + _buckets.size() - 1);
+		return last - first < MAX_BUCKETS;
+	}
+
+	@Override
+	public boolean add(Node node) {
+		double fKey = key(node);
+		_size++;
+		if(!inSpan(fKey)) {
+			_overflow.add(node);
+			return true;
+		}
+		long key = (long)fKey;
+		if(_bucketed == 0) {
+			_buckets.clear();
+			_offset = key;
+			_minBucket = 0;
+		}
+		else if(key < _offset) {
+			// prepend empty buckets, only happens when the heuristic is not consistent
+			int missing = (int)(_offset - key);
+			List<PriorityQueue<Node>> buckets = new ArrayList<PriorityQueue<Node>>(missing + _buckets.size());
+			for(int i = 0; i < missing; i++) {
+				buckets.add(null);
+			}
+			buckets.addAll(_buckets);
+			_buckets = buckets;
+			_minBucket += missing;
+			_offset = key;
+		}
+		int index = (int)(key - _offset);
+		while(_buckets.size() <= index) {
+			_buckets.add(null);
+		}
+		PriorityQueue<Node> bucket = _buckets.get(index);
+		if(bucket == null) {
+			bucket = new PriorityQueue<Node>(_comparator);
+			_buckets.set(index, bucket);
+		}
+		bucket.add(node);
+		if(_bucketed == 0 || index < _minBucket) {
+			_minBucket = index;
+		}
+		_bucketed++;
+		return true;
+	}
+
+	@Override
+	public Node poll() {
+		PriorityQueue<Node> first = first();
+		if(first == null) {
+			return null;
+		}
+		_size--;
+		if(first != _overflow) {
+			_bucketed--;
+		}
+		return first.poll();
+	}
+
+	@Override
+	public Node peek() {
+		PriorityQueue<Node> first = first();
+		return first == null ? null : first.peek();
+	}
+
+	/**
+	 * @return the first bucket or the overflow heap, whichever has the first node. Null if the list is empty
+	 */
+	private PriorityQueue<Node> first() {
+		if(_bucketed == 0) {
+			return _overflow.isEmpty() ? null : _overflow;
+		}
+		PriorityQueue<Node> bucket = firstBucket();
+		if(!_overflow.isEmpty() && _comparator.compare(_overflow.peek(), bucket.peek()) < 0) {
+			return _overflow;
+		}
+		return bucket;
+	}
+
+	/**
+	 * Moves the minimum forward to the first non empty bucket and drops the buckets before it once there are enough of
+	 * them. Only called when there are nodes in the buckets.
+	 */
+	private PriorityQueue<Node> firstBucket() {
+		PriorityQueue<Node> bucket = _buckets.get(_minBucket);
+		while(bucket == null || bucket.isEmpty()) {
+			bucket = _buckets.get(++_minBucket);
+		}
+		if(_minBucket >= COMPACT_THRESHOLD && _minBucket >= _buckets.size() / 2) {
+			_buckets.subList(0, _minBucket).clear();
+			_offset += _minBucket;
+			_minBucket = 0;
+		}
+		return bucket;
+	}
+
+	@Override
+	public boolean remove(Object element) {
+		PriorityQueue<Node> bucket = bucketOf((Node) element);
+		if(bucket != null && bucket.remove(element)) {
+			_size--;
+			_bucketed--;
+			return true;
+		}
+		if(_overflow.remove(element)) {
+			_size--;
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public boolean contains(Object element) {
+		PriorityQueue<Node> bucket = bucketOf((Node) element);
+		return (bucket != null && bucket.contains(element)) || _overflow.contains(element);
+	}
+
+	private PriorityQueue<Node> bucketOf(Node node) {
+		double index = key(node) - _offset;
+		if(_bucketed == 0 || !(index >= 0 && index < _buckets.size())) {
+			return null;
+		}
+		return _buckets.get((int)index);
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return _size == 0;
+	}
+
+	@Override
+	public int size() {
+		return _size;
+	}
+
+	@Override
+	public Iterator<Node> iterator() {
+		return new Iterator<Node>() {
+			private int _bucket = _bucketed == 0 ? _buckets.size() : _minBucket;
+			private Iterator<Node> _current = null;
+			private boolean _inOverflow = false;
+
+			@Override
+			public boolean hasNext() {
+				while(_current == null || !_current.hasNext()) {
+					if(_bucket >= _buckets.size()) {
+						if(_inOverflow) {
+							return false;
+						}
+						_inOverflow = true;
+						_current = _overflow.iterator();
+						continue;
+					}
+					PriorityQueue<Node> bucket = _buckets.get(_bucket++);
+					_current = bucket == null ? null : bucket.iterator();
+				}
+				return true;
+			}
+
+			@Override
+			public Node next() {
+				if(!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return _current.next();
+			}
+		};
+	}
+
+}
@@ -0,0 +1,24 @@
+package algorithms.openlists;
+
+import java.util.Comparator;
+
+/**
+ * Binary heap ordered by several keys: ties in the first comparator are broken by the second one, and so on.
+ */
+public class MultiKeyOpenList<E> extends BinaryHeapOpenList<E> {
+	
+	@SafeVarargs
+	public MultiKeyOpenList(Comparator<? super E> firstKey, Comparator<? super E>... otherKeys) {
+		super(chain(firstKey, otherKeys));
+	}
+	
+	@SafeVarargs
+	private static <E> Comparator<E> chain(Comparator<? super E> firstKey, Comparator<? super E>... otherKeys) {
+		Comparator<E> comparator = firstKey::compare;
+		for(Comparator<? super E> key : otherKeys) {
+			comparator = comparator.thenComparing(key);
+		}
+		return comparator;
+	}
+
+}
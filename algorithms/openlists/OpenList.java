@@ -0,0 +1,23 @@
+package algorithms.openlists;
+
+/**
+ * Priority queue used as the open list of a best-first search. Each search chooses its implementation once, in
+ * BFSearch.createOpenList, so the search loop does not depend on the kind of state being expanded.
+ */
+public interface OpenList<E> extends Iterable<E> {
+	public boolean add(E element);
+	public E poll();
+	public E peek();
+	public boolean remove(Object element);
+	public boolean contains(Object element);
+	public boolean isEmpty();
+	public int size();
+	
+	/**
+	 * Replaces an element that is still in the list by a better one, in place (decrease key), instead of adding a duplicate.
+	 * @return false if the list does not support it or previous is no longer in the list
+	 */
+	public default boolean replace(E previous, E element) {
+		return false;
+	}
+}
@@ -1,17 +1,22 @@
 package algorithms.trees;
 
+import algorithms.heuristics.DistanceTableCache;
+
 public class Node implements Comparable<Node> {
 	
 	private Node _root;
 	private Node _parent;
 	private State _state;
 	private boolean _timeout;
+	private int _heapIndex; //position in an IndexedHeapOpenList, -1 if not in one
+	private DistanceTableCache _distanceTables; //only for roots: tables of the run that started the search
 	
 	
 	public Node(Node parent, State state) {
 		_parent = parent;
 		_state = state;
 		_timeout = false;
+		_heapIndex = -1;
 		if(parent == null) {
 			_root = this; 
 		}
@@ -76,4 +81,24 @@ public class Node implements Comparable<Node> {
 		this._parent = parent;
 	}
 
+	public int getHeapIndex() {
+		return _heapIndex;
+	}
+
+	public void setHeapIndex(int heapIndex) {
+		this._heapIndex = heapIndex;
+	}
+
+	public DistanceTableCache getDistanceTables() {
+		return _distanceTables;
+	}
+
+	/**
+	 * @param distanceTables static distance tables of the run (e.g. CBS or ID) that starts a search from this root. The
+	 * search uses them as heuristic
+	 */
+	public void setDistanceTables(DistanceTableCache distanceTables) {
+		this._distanceTables = distanceTables;
+	}
+
 }
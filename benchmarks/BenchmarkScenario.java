@@ -0,0 +1,89 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import agents.Agent;
+import algorithms.AlgorithmName;
+import algorithms.conflicts.AlgorithmConflict;
+import exceptions.SolutionNotFoundException;
+import exceptions.TimeoutException;
+import utils.AlgorithmUtils;
+import utils.GeneralUtils;
+
+/**
+ * A synthetic map and a group of agents crossing it from one side to the other.
+ * Starts are spread every two voxels over the face x = 1 and each goal is the mirrored voxel of its start on the face
+ * x = size - 2, so all agents cross each other near the center of the map. Searches change the paths of the agents,
+ * so a new set of agents is created for every run.
+ */
+public class BenchmarkScenario {
+
+	public static final int SOLVED = 1;
+	public static final int NO_SOLUTION = 0;
+	public static final int TIMEOUT = -1;
+
+	private static final double SPEED = 1;
+
+	private final SyntheticVoxelMap _map;
+	private final int _numAgents;
+
+	public BenchmarkScenario(int size, SyntheticVoxelMap.Layout layout, int numAgents, long seed) {
+		this(new SyntheticVoxelMap(size, layout, seed), numAgents);
+	}
+
+	public BenchmarkScenario(SyntheticVoxelMap map, int numAgents) {
+		int perRow = (map.getSize() - 2) / 2;
+		if(numAgents > perRow * perRow) {
+			throw new IllegalArgumentException(numAgents + " agents do not fit in a map of size " + map.getSize());
+		}
+		_map = map;
+		_numAgents = numAgents;
+		int last = map.getSize() - 2;
+		for(int i = 0; i < numAgents; i++) {
+			int y = 1 + 2 * (i % perRow);
+			int z = 1 + 2 * (i / perRow);
+			_map.clear(1, y, z);
+			_map.clear(last, last + 1 - y, last + 1 - z);
+		}
+	}
+
+	public List<Agent> createAgents() {
+		int perRow = (_map.getSize() - 2) / 2;
+		int last = _map.getSize() - 2;
+		List<Agent> agents = new ArrayList<Agent>();
+		for(int i = 0; i < _numAgents; i++) {
+			int y = 1 + 2 * (i % perRow);
+			int z = 1 + 2 * (i / perRow);
+			agents.add(new SyntheticAgent(i, 1, y, z, last, last + 1 - y, last + 1 - z, SPEED));
+		}
+		return agents;
+	}
+
+	/**
+	 * Runs a search through AlgorithmUtils like the library does, on a clone of the map
+	 * @param algorithm high level algorithm
+	 * @param singleAlgorithm low level algorithm, only used by the multi agent searches
+	 * @param timeLimit in milliseconds
+	 * @param weight for the focal searches
+	 * @return SOLVED, NO_SOLUTION or TIMEOUT
+	 */
+	public int run(List<Agent> agents, AlgorithmName algorithm, AlgorithmName singleAlgorithm, long timeLimit, double weight,
+			List<AlgorithmConflict> conflicts) {
+		try {
+			AlgorithmUtils.runAlgorithm(_map.clone(), agents, AlgorithmUtils.getRootNode(algorithm), algorithm, singleAlgorithm,
+					timeLimit, GeneralUtils.getCurrentTimeInMilliseconds(), weight, conflicts);
+			return SOLVED;
+		}
+		catch(SolutionNotFoundException e) {
+			return NO_SOLUTION;
+		}
+		catch(TimeoutException e) {
+			return TIMEOUT;
+		}
+	}
+
+	public SyntheticVoxelMap getMap() {
+		return _map;
+	}
+}
@@ -0,0 +1,73 @@
+package benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import agents.Agent;
+import algorithms.AlgorithmName;
+import main.DefaultParameters;
+
+/**
+ * Single agent engines (and OD* on the same scenarios) run through AlgorithmUtils.runAlgorithm on synthetic maps.
+ * Throughput and sample time (latency percentiles) are reported; run with -prof gc for the allocation rate.
+ * The result of each run (BenchmarkScenario.SOLVED, NO_SOLUTION, TIMEOUT) is returned so failed searches are not
+ * mistaken for fast ones when comparing two versions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class EngineBenchmark {
+
+	private static final long TIME_LIMIT = 10000;
+
+	@Param({"ASTAR", "FOCALASTAR", "SMASTAR", "ODASTAR"})
+	public String algorithm;
+
+	@Param({"OPEN", "RANDOM", "CORRIDORS", "NO_FLY_ZONES"})
+	public String layout;
+
+	@Param({"32", "64"})
+	public int size;
+
+	@Param({"1"})
+	public int agents;
+
+	private BenchmarkScenario _scenario;
+	private AlgorithmName _algorithm;
+	private List<Agent> _agents;
+
+	@Setup(Level.Trial)
+	public void setupScenario() {
+		_scenario = new BenchmarkScenario(size, SyntheticVoxelMap.Layout.valueOf(layout), agents, 42);
+		_algorithm = AlgorithmName.valueOf(algorithm);
+	}
+
+	/**
+	 * Searches change the agents' paths, every run starts from the straight line paths
+	 */
+	@Setup(Level.Invocation)
+	public void setupAgents() {
+		_agents = _scenario.createAgents();
+	}
+
+	@Benchmark
+	public int search() {
+		return _scenario.run(_agents, _algorithm, _algorithm, TIME_LIMIT, DefaultParameters.aStarWeight, null);
+	}
+}
@@ -0,0 +1,153 @@
+package benchmarks;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import algorithms.openlists.OpenList;
+import algorithms.trees.Node;
+import algorithms.trees.State;
+
+/**
+ * Minimal A* over a cubic voxel grid with the same move set (26 neighbors), step costs and weighted diagonal distance
+ * heuristic as AStarSearch, used to measure the open list structures without the map and agent machinery.
+ */
+public class GridAStar {
+
+	private static final double SQRT2 = Math.sqrt(2);
+	private static final double SQRT3 = Math.sqrt(3);
+	private static final double WEIGHT = 1.01;
+
+	private final int _size;
+	private final boolean[] _blocked;
+	private final double[] _bestG;
+	private final Node[] _generated;
+
+	/**
+	 * @param size number of voxels in each dimension
+	 * @param obstacleDensity fraction of blocked voxels
+	 * @param seed
+	 */
+	public GridAStar(int size, double obstacleDensity, long seed) {
+		_size = size;
+		_blocked = new boolean[size * size * size];
+		_bestG = new double[_blocked.length];
+		_generated = new Node[_blocked.length];
+		Random random = new Random(seed);
+		for(int i = 0; i < _blocked.length; i++) {
+			_blocked[i] = random.nextDouble() < obstacleDensity;
+		}
+	}
+
+	/**
+	 * Searches from one corner of the grid to the opposite one
+	 * @return number of expanded nodes, -1 if there is no path
+	 */
+	public int search(Supplier<OpenList<Node>> openListFactory) {
+		int start = index(0, 0, 0);
+		int goal = index(_size - 1, _size - 1, _size - 1);
+		_blocked[start] = false;
+		_blocked[goal] = false;
+		Arrays.fill(_bestG, Double.MAX_VALUE);
+		Arrays.fill(_generated, null);
+		OpenList<Node> open = openListFactory.get();
+		GridState root = new GridState(start, 0, heuristic(start, goal));
+		_bestG[start] = 0;
+		open.add(new Node(null, root));
+		int expanded = 0;
+		while(!open.isEmpty()) {
+			Node current = open.poll();
+			GridState state = (GridState) current.getState();
+			if(state._index == goal) {
+				return expanded;
+			}
+			//stale entry
+			if(state.getGVal() > _bestG[state._index]) {
+				continue;
+			}
+			expanded++;
+			int x = state._index % _size;
+			int y = (state._index / _size) % _size;
+			int z = state._index / (_size * _size);
+			for(int dx = -1; dx <= 1; dx++) {
+				for(int dy = -1; dy <= 1; dy++) {
+					for(int dz = -1; dz <= 1; dz++) {
+						int nx = x + dx, ny = y + dy, nz = z + dz;
+						int moved = Math.abs(dx) + Math.abs(dy) + Math.abs(dz);
+						if(moved == 0 || nx < 0 || ny < 0 || nz < 0 || nx >= _size || ny >= _size || nz >= _size) {
+							continue;
+						}
+						int neighbor = index(nx, ny, nz);
+						if(_blocked[neighbor]) {
+							continue;
+						}
+						double g = state.getGVal() + (moved == 1 ? 1 : moved == 2 ? SQRT2 : SQRT3);
+						if(g < _bestG[neighbor]) {
+							_bestG[neighbor] = g;
+							Node node = new Node(current, new GridState(neighbor, g, heuristic(neighbor, goal)));
+							//same as AStarSearch: decrease key when the list supports it
+							if(_generated[neighbor] == null || !open.replace(_generated[neighbor], node)) {
+								open.add(node);
+							}
+							_generated[neighbor] = node;
+						}
+					}
+				}
+			}
+		}
+		return -1;
+	}
+
+	private int index(int x, int y, int z) {
+		return x + _size * (y + _size * z);
+	}
+
+	private double heuristic(int from, int to) {
+		int dx = Math.abs(from % _size - to % _size);
+		int dy = Math.abs((from / _size) % _size - (to / _size) % _size);
+		int dz = Math.abs(from / (_size * _size) - to / (_size * _size));
+		int min = Math.min(dx, Math.min(dy, dz));
+		int max = Math.max(dx, Math.max(dy, dz));
+		int mid = dx + dy + dz - min - max;
+		return WEIGHT * (SQRT3 * min + SQRT2 * (mid - min) + (max - mid));
+	}
+
+	public static class GridState extends State {
+		private final int _index;
+
+		public GridState(int index, double gVal, double hVal) {
+			super(gVal, hVal, gVal + hVal);
+			_index = index;
+		}
+
+		@Override
+		public int compareTo(State o) {
+			return Double.compare(_fVal, o.getFVal());
+		}
+
+		@Override
+		public State clone() {
+			return new GridState(_index, _gVal, _hVal);
+		}
+
+		@Override
+		public double calculateDistance(State state) {
+			return 0;
+		}
+
+		@Override
+		public double getLowerBound() {
+			return _fVal;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof GridState && ((GridState) o)._index == _index;
+		}
+
+		@Override
+		public int hashCode() {
+			return _index;
+		}
+	}
+}
@@ -0,0 +1,73 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import algorithms.comparators.FValueComparator;
+import algorithms.openlists.BinaryHeapOpenList;
+import algorithms.openlists.IndexedHeapOpenList;
+import algorithms.openlists.MinMaxHeapOpenList;
+import algorithms.openlists.MonotoneBucketOpenList;
+
+/**
+ * A* corner to corner on large 3D grids with each open list implementation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OpenListBenchmark {
+
+	@Param({"64", "128"})
+	public int size;
+
+	@Param({"0.0", "0.2"})
+	public double obstacleDensity;
+
+	private GridAStar _grid;
+	private FValueComparator _comparator;
+
+	@Setup
+	public void setup() {
+		_grid = new GridAStar(size, obstacleDensity, 42);
+		_comparator = new FValueComparator();
+	}
+
+	@Benchmark
+	public int minMaxHeap() {
+		return _grid.search(() -> new MinMaxHeapOpenList<>(_comparator));
+	}
+
+	@Benchmark
+	public int binaryHeap() {
+		return _grid.search(() -> new BinaryHeapOpenList<>(_comparator));
+	}
+
+	@Benchmark
+	public int indexedHeap() {
+		return _grid.search(() -> new IndexedHeapOpenList(_comparator));
+	}
+
+	@Benchmark
+	public int monotoneBuckets() {
+		return _grid.search(() -> new MonotoneBucketOpenList(_comparator, 1));
+	}
+
+	@Benchmark
+	public int monotoneBucketsFine() {
+		return _grid.search(() -> new MonotoneBucketOpenList(_comparator, 0.25));
+	}
+}
@@ -0,0 +1,229 @@
+package benchmarks;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+import agents.Agent;
+import algorithms.AlgorithmName;
+import algorithms.CBS.GreedyCBS.GreedyCBSSearch;
+import algorithms.IndependenceDetecetion.IndependenceDetectionSearch;
+import algorithms.conflicts.AlgorithmConflict;
+import algorithms.heuristics.NumberOfConflictsHeuristic;
+import algorithms.metrics.SearchMetrics;
+import algorithms.metrics.SearchMetricsListener;
+import algorithms.trees.Node;
+import main.ConflictDetection;
+import map.Map;
+import operations.ClientOperation;
+import utils.AgentUtils;
+import utils.GeneralUtils;
+
+/**
+ * Sweeps agent count and obstacle density for the multi agent solvers and writes one CSV line per configuration:
+ * success rate within the time limit, wall time, constraint tree nodes expanded, low level searches and sum of costs.
+ * Every trial plans each agent alone with A* first, like the library does before resolving conflicts, and a run only
+ * counts as solved if it returns within the time limit and the final paths have no conflicts.
+ * Once a solver solves no trial of a configuration, larger agent counts are skipped for that density.
+ *
+ * Usage: ScalingBenchmark output.csv [timeLimit ms] [trials] [map size]
+ */
+public class ScalingBenchmark {
+
+	private static final int[] AGENTS = {2, 4, 8, 16, 32, 64, 128, 200};
+	private static final double[] DENSITIES = {0.0, 0.1, 0.2};
+	private static final double[] ECBS_WEIGHTS = {1.1, 1.5, 2.0};
+	private static final List<String> HIGH_LEVEL_SEARCHES = Arrays.asList("CBS", "ECBS");
+
+	private enum Solver {
+		CBS, ECBS, GREEDY_CBS, COOPERATIVE_ASTAR, ID
+	}
+
+	private final long _timeLimit;
+	private final int _trials;
+	private final int _size;
+	private final MetricsCollector _collector = new MetricsCollector();
+
+	public ScalingBenchmark(long timeLimit, int trials, int size) {
+		_timeLimit = timeLimit;
+		_trials = trials;
+		_size = size;
+	}
+
+	public static void main(String[] args) throws IOException {
+		if(args.length < 1) {
+			System.err.println("Usage: ScalingBenchmark output.csv [timeLimit ms] [trials] [map size]");
+			return;
+		}
+		long timeLimit = args.length > 1 ? Long.parseLong(args[1]) : 10000;
+		int trials = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+		int size = args.length > 3 ? Integer.parseInt(args[3]) : 32;
+		try(PrintWriter out = new PrintWriter(new FileWriter(args[0]))) {
+			new ScalingBenchmark(timeLimit, trials, size).run(out);
+		}
+	}
+
+	public void run(PrintWriter out) {
+		out.println("solver,weight,agents,density,trials,solved,successRate,meanWallTimeMs,maxWallTimeMs,meanCTExpanded,meanLowLevelSearches,meanSumOfCosts");
+		SearchMetrics.addListener(_collector);
+		try {
+			for(Solver solver : Solver.values()) {
+				double[] weights = solver == Solver.ECBS ? ECBS_WEIGHTS : new double[] {1};
+				for(double weight : weights) {
+					for(double density : DENSITIES) {
+						sweepAgents(out, solver, weight, density);
+					}
+				}
+			}
+		}
+		finally {
+			SearchMetrics.removeListener(_collector);
+		}
+	}
+
+	private void sweepAgents(PrintWriter out, Solver solver, double weight, double density) {
+		for(int numAgents : AGENTS) {
+			int perRow = (_size - 2) / 2;
+			if(numAgents > perRow * perRow) {
+				return;
+			}
+			int solved = 0;
+			double wallTime = 0;
+			double maxWallTime = 0;
+			long ctExpanded = 0;
+			long lowLevelSearches = 0;
+			double sumOfCosts = 0;
+			for(int trial = 0; trial < _trials; trial++) {
+				BenchmarkScenario scenario = new BenchmarkScenario(new SyntheticVoxelMap(_size, SyntheticVoxelMap.Layout.RANDOM, density, trial), numAgents);
+				List<Agent> agents = planAgents(scenario);
+				_collector.reset();
+				long start = System.nanoTime();
+				boolean finished = runSolver(solver, weight, scenario, agents);
+				double duration = (System.nanoTime() - start) / 1e6;
+				boolean success = finished && duration <= _timeLimit && findConflicts(agents).isEmpty();
+				wallTime += duration;
+				maxWallTime = Math.max(maxWallTime, duration);
+				ctExpanded += _collector.getHighLevelExpansions();
+				lowLevelSearches += _collector.getLowLevelSearches();
+				if(success) {
+					solved++;
+					sumOfCosts += sumOfCosts(agents);
+				}
+			}
+			out.println(String.format(Locale.ROOT, "%s,%.2f,%d,%.2f,%d,%d,%.3f,%.1f,%.1f,%.1f,%.1f,%s", solver, weight, numAgents, density,
+					_trials, solved, (double)solved / _trials, wallTime / _trials, maxWallTime, (double)ctExpanded / _trials,
+					(double)lowLevelSearches / _trials, solved == 0 ? "" : String.format(Locale.ROOT, "%.1f", sumOfCosts / solved)));
+			out.flush();
+			// scaling cliff reached
+			if(solved == 0) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Plans every agent alone, ignoring the others
+	 */
+	private List<Agent> planAgents(BenchmarkScenario scenario) {
+		List<Agent> agents = scenario.createAgents();
+		for(Agent agent : agents) {
+			scenario.run(Collections.singletonList(agent), AlgorithmName.ASTAR, AlgorithmName.ASTAR, _timeLimit, 1, null);
+		}
+		AgentUtils.setAgentsIndexes(agents);
+		AgentUtils.setAgentsInSharedTime(agents);
+		return agents;
+	}
+
+	/**
+	 * @return false if the solver reported a failure
+	 */
+	private boolean runSolver(Solver solver, double weight, BenchmarkScenario scenario, List<Agent> agents) {
+		switch(solver) {
+		case CBS:
+			return scenario.run(agents, AlgorithmName.CBS, AlgorithmName.ASTAR, _timeLimit, weight, findConflicts(agents)) == BenchmarkScenario.SOLVED;
+		case ECBS:
+			return scenario.run(agents, AlgorithmName.ECBS, AlgorithmName.FOCALASTAR, _timeLimit, weight, findConflicts(agents)) == BenchmarkScenario.SOLVED;
+		case COOPERATIVE_ASTAR:
+			return scenario.run(agents, AlgorithmName.COOPERATIVEASTAR, AlgorithmName.ASTAR, _timeLimit, weight, findConflicts(agents)) == BenchmarkScenario.SOLVED;
+		case GREEDY_CBS:
+			// not reachable through AlgorithmName
+			GreedyCBSSearch greedy = new GreedyCBSSearch(scenario.getMap().clone(), agents, new Node(null, null), new NumberOfConflictsHeuristic(), AlgorithmName.ASTAR);
+			return !greedy.findPath(_timeLimit, GeneralUtils.getCurrentTimeInMilliseconds()) && !greedy.isNoSolution();
+		case ID:
+			IndependenceDetectionSearch id = new TimedIndependenceDetectionSearch(scenario.getMap().clone(), agents, _timeLimit);
+			id.setAgentPathCosts();
+			id.search();
+			return true;
+		default:
+			throw new IllegalArgumentException("Unknown solver " + solver);
+		}
+	}
+
+	private static List<AlgorithmConflict> findConflicts(List<Agent> agents) {
+		List<AlgorithmConflict> conflicts = new ArrayList<AlgorithmConflict>();
+		for(int i = 0; i < agents.size(); i++) {
+			for(int j = i + 1; j < agents.size(); j++) {
+				ConflictDetection.checkPathConflict(agents.get(i).getPath(), agents.get(j).getPath(), null, null, false, conflicts, true);
+			}
+		}
+		return conflicts;
+	}
+
+	private static double sumOfCosts(List<Agent> agents) {
+		double cost = 0;
+		for(Agent agent : agents) {
+			cost += agent.getPath().getEndTimestep() - agent.getPath().getStartTimestep();
+		}
+		return cost;
+	}
+
+	/**
+	 * ID with the benchmark time limit for each group search instead of the default one
+	 */
+	private static class TimedIndependenceDetectionSearch extends IndependenceDetectionSearch {
+
+		TimedIndependenceDetectionSearch(Map map, List<Agent> agents, long timeLimit) {
+			super(map, agents, AlgorithmName.ASTAR, AlgorithmName.CBS, new HashMap<Integer, ClientOperation>());
+			this.timeLimit = timeLimit;
+		}
+	}
+
+	/**
+	 * Adds up the metrics published by the searches of one run, nested searches included.
+	 * Searches that timed out can still publish after the run, their metrics then go to the next run.
+	 */
+	private static class MetricsCollector implements SearchMetricsListener {
+
+		private long _highLevelExpansions;
+		private long _lowLevelSearches;
+
+		@Override
+		public synchronized void searchFinished(SearchMetrics metrics) {
+			if(HIGH_LEVEL_SEARCHES.contains(metrics.getAlgorithmName())) {
+				_highLevelExpansions += metrics.getExpansions();
+			}
+			else {
+				_lowLevelSearches++;
+			}
+		}
+
+		public synchronized void reset() {
+			_highLevelExpansions = 0;
+			_lowLevelSearches = 0;
+		}
+
+		public synchronized long getHighLevelExpansions() {
+			return _highLevelExpansions;
+		}
+
+		public synchronized long getLowLevelSearches() {
+			return _lowLevelSearches;
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package benchmarks;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import algorithms.SearchExecutor;
+
+/**
+ * Per call overhead of running an (empty) search on a separate thread, as done by BFSearch.findPath.
+ * freshExecutor reproduces the old behaviour of creating a single thread executor for every call,
+ * sharedExecutor uses SearchExecutor. The nested variants mimic the CBS high level waiting for a low level search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SearchExecutorBenchmark {
+
+	private static final long TIME_LIMIT = 1000;
+
+	@Param({"PLATFORM", "VIRTUAL"})
+	public String threadType;
+
+	@Setup
+	public void setup() {
+		SearchExecutor.configure(SearchExecutor.ThreadType.valueOf(threadType), 60000);
+	}
+
+	@Benchmark
+	public boolean freshExecutor() throws InterruptedException {
+		return runFresh(() -> {});
+	}
+
+	@Benchmark
+	public boolean sharedExecutor() throws InterruptedException {
+		return runShared(() -> {});
+	}
+
+	@Benchmark
+	public boolean freshExecutorNested() throws InterruptedException {
+		return runFresh(() -> {
+			try {
+				runFresh(() -> {});
+				runFresh(() -> {});
+			}
+			catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+	}
+
+	@Benchmark
+	public boolean sharedExecutorNested() throws InterruptedException {
+		return runShared(() -> {
+			try {
+				runShared(() -> {});
+				runShared(() -> {});
+			}
+			catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+	}
+
+	private static boolean runFresh(Runnable search) throws InterruptedException {
+		final ExecutorService service = Executors.newSingleThreadExecutor();
+		try {
+			service.submit(search);
+			service.shutdown();
+			return service.awaitTermination(TIME_LIMIT, TimeUnit.MILLISECONDS);
+		}
+		finally {
+			service.shutdown();
+		}
+	}
+
+	private static boolean runShared(Runnable search) throws InterruptedException {
+		final CountDownLatch searchFinished = new CountDownLatch(1);
+		Future<?> task = SearchExecutor.submit(() -> {
+			try {
+				search.run();
+			}
+			finally {
+				searchFinished.countDown();
+			}
+		});
+		boolean finished = searchFinished.await(TIME_LIMIT, TimeUnit.MILLISECONDS);
+		if(!finished) {
+			task.cancel(true);
+		}
+		return finished;
+	}
+}
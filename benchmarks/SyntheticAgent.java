@@ -0,0 +1,98 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import agents.Agent;
+import geometry.coords.AgentPosition;
+import geometry.coords.PointInterface;
+
+/**
+ * Agent flying between two voxels of a SyntheticVoxelMap, with no time window at the goal.
+ * The searches only read start, goal, speed, radius and id from the agent, so those are fixed here and the
+ * path is kept by Agent. The initial path is the straight line from start to goal.
+ */
+public class SyntheticAgent extends Agent {
+
+	private static final int ZONE = 30;
+	private static final char BAND = 'T';
+
+	private final int _id;
+	private final AgentPosition _start;
+	private final AgentPosition _goal;
+	private final double _speed;
+
+	public SyntheticAgent(int id, int startX, int startY, int startZ, int goalX, int goalY, int goalZ, double speed) {
+		this(id, new AgentPosition(startX, startY, startZ, 0, -1, ZONE, BAND), new OpenGoalPosition(goalX, goalY, goalZ), speed);
+	}
+
+	private SyntheticAgent(int id, AgentPosition start, AgentPosition goal, double speed) {
+		super();
+		_id = id;
+		_start = start;
+		_goal = goal;
+		_speed = speed;
+		setId(id);
+		setIndex(id);
+		List<PointInterface> path = new ArrayList<PointInterface>();
+		path.add(_start.clonePoint());
+		path.add(_goal.clonePoint());
+		setPath(path, true);
+	}
+
+	@Override
+	public PointInterface getStart() {
+		return _start;
+	}
+
+	@Override
+	public PointInterface getGoal() {
+		return _goal;
+	}
+
+	@Override
+	public double getSpeed() {
+		return _speed;
+	}
+
+	@Override
+	public double getRadius() {
+		return 0;
+	}
+
+	@Override
+	public int getId() {
+		return _id;
+	}
+
+	/**
+	 * CBS clones agents before re-planning them, the clone must keep the fixed positions
+	 */
+	@Override
+	public Agent clone() {
+		SyntheticAgent agent = new SyntheticAgent(_id, _start, _goal, _speed);
+		agent.setPath(getPath().clone());
+		agent.setAgentsInSharedTime(getAgentsInSharedTime());
+		return agent;
+	}
+
+	/**
+	 * Goal that can be reached at any time
+	 */
+	private static class OpenGoalPosition extends AgentPosition {
+
+		OpenGoalPosition(int x, int y, int z) {
+			super(x, y, z, -1, -1, ZONE, BAND);
+		}
+
+		@Override
+		public double getMinETA() {
+			return 0;
+		}
+
+		@Override
+		public double getMaxETA() {
+			return Double.MAX_VALUE;
+		}
+	}
+}
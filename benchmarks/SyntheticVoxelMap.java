@@ -0,0 +1,132 @@
+package benchmarks;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+
+import agents.path.PathLine;
+import geometry.coords.PointInterface;
+import map.Map;
+
+/**
+ * Map built in memory for the benchmarks: a box of voxels with static obstacles and no terrain or zone data.
+ * The searches only see the obstacles through inMap, which is the call AStarState and ODStarState use to generate
+ * the neighbors of a state; move validation and agent obstacles are left to Map.
+ * Voxel coordinates are the map coordinates, so start and goal positions must be whole voxels.
+ */
+public class SyntheticVoxelMap extends Map {
+
+	public enum Layout {
+		OPEN, RANDOM, CORRIDORS, NO_FLY_ZONES
+	}
+
+	private static final double RANDOM_DENSITY = 0.2;
+	private static final int CORRIDOR_SPACING = 8;
+	private static final int CORRIDOR_GAP = 2;
+
+	private final int _size;
+	private final boolean[] _blocked;
+
+	/**
+	 * @param size number of voxels in each dimension
+	 * @param layout
+	 * @param seed for the random layouts
+	 */
+	public SyntheticVoxelMap(int size, Layout layout, long seed) {
+		this(size, layout, RANDOM_DENSITY, seed);
+	}
+
+	/**
+	 * @param size number of voxels in each dimension
+	 * @param layout
+	 * @param density fraction of blocked voxels in the RANDOM layout
+	 * @param seed for the random layouts
+	 */
+	public SyntheticVoxelMap(int size, Layout layout, double density, long seed) {
+		this(size, new boolean[size * size * size]);
+		Random random = new Random(seed);
+		switch(layout) {
+		case RANDOM:
+			for(int i = 0; i < _blocked.length; i++) {
+				_blocked[i] = random.nextDouble() < density;
+			}
+			break;
+		case CORRIDORS:
+			// full height walls across x, with a gap alternating between both ends of y
+			for(int x = CORRIDOR_SPACING; x < size - 1; x += CORRIDOR_SPACING) {
+				boolean gapAtEnd = (x / CORRIDOR_SPACING) % 2 == 0;
+				for(int y = 0; y < size; y++) {
+					boolean gap = gapAtEnd ? y >= size - CORRIDOR_GAP : y < CORRIDOR_GAP;
+					for(int z = 0; z < size && !gap; z++) {
+						_blocked[index(x, y, z)] = true;
+					}
+				}
+			}
+			break;
+		case NO_FLY_ZONES:
+			// vertical cylinders over the whole height of the map
+			int radius = Math.max(2, size / 10);
+			for(int i = 0; i < Math.max(1, size / 8); i++) {
+				int centerX = random.nextInt(size);
+				int centerY = random.nextInt(size);
+				for(int x = Math.max(0, centerX - radius); x <= Math.min(size - 1, centerX + radius); x++) {
+					for(int y = Math.max(0, centerY - radius); y <= Math.min(size - 1, centerY + radius); y++) {
+						if((x - centerX) * (x - centerX) + (y - centerY) * (y - centerY) <= radius * radius) {
+							for(int z = 0; z < size; z++) {
+								_blocked[index(x, y, z)] = true;
+							}
+						}
+					}
+				}
+			}
+			break;
+		default:
+			break;
+		}
+	}
+
+	private SyntheticVoxelMap(int size, boolean[] blocked) {
+		super();
+		_size = size;
+		_blocked = blocked;
+	}
+
+	/**
+	 * Removes the obstacle at a voxel, used to keep start and goal positions free
+	 */
+	public void clear(int x, int y, int z) {
+		_blocked[index(x, y, z)] = false;
+	}
+
+	private int index(int x, int y, int z) {
+		return (x * _size + y) * _size + z;
+	}
+
+	@Override
+	public boolean inMap(PointInterface position, PointInterface goal, double radius) {
+		int x = (int)position.getX();
+		int y = (int)position.getY();
+		int z = (int)position.getZ();
+		if(x < 0 || y < 0 || z < 0 || x >= _size || y >= _size || z >= _size) {
+			return false;
+		}
+		return !_blocked[index(x, y, z)];
+	}
+
+	/**
+	 * The static obstacles are shared, agent obstacles are copied like in Map
+	 */
+	@Override
+	public Map clone() {
+		SyntheticVoxelMap map = new SyntheticVoxelMap(_size, _blocked);
+		HashMap<Integer, HashSet<PathLine>> agentObstacles = getAgentObstacles();
+		if(agentObstacles != null) {
+			map.addAgentObstacles(agentObstacles);
+		}
+		return map;
+	}
+
+	public int getSize() {
+		return _size;
+	}
+}